@@ -0,0 +1,140 @@
+package com.seniorresourcepacks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests per second for a small /api response, the dashboard's polling traffic. "close"
+ * opens a new connection for every request, the way the server worked before it kept
+ * connections alive; "keepAlive" sends them all on one persistent connection. Run with
+ * -t N for N concurrent clients.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiBenchmark {
+    
+    @State(Scope.Benchmark)
+    public static class Server {
+        PackHttpServer httpServer;
+        
+        @Setup(Level.Trial)
+        public void start() throws IOException {
+            DashboardRenderer.Model model = new DashboardRenderer.Model();
+            model.serverRunning = true;
+            model.httpPort = 8080;
+            model.baseUrl = "http://127.0.0.1:8080/";
+            model.loadedPacks = 3;
+            
+            PackHttpServer.Settings settings = new PackHttpServer.Settings();
+            settings.keepAliveTimeoutMillis = 60_000;
+            settings.maxRequestsPerConnection = Integer.MAX_VALUE;
+            settings.metrics = new PackMetrics();
+            httpServer = new PackHttpServer(BenchmarkFixtures.quietLogger(), (request, response) -> {
+                response.header("Cache-Control", "no-cache");
+                response.send(200, "application/json", DashboardRenderer.renderStatus(model));
+            }, settings);
+            httpServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        }
+        
+        @TearDown(Level.Trial)
+        public void stop() throws IOException {
+            httpServer.stop();
+        }
+    }
+    
+    @State(Scope.Thread)
+    public static class Client {
+        @Param({"keepAlive", "close"})
+        public String connection;
+        
+        int port;
+        Socket socket;
+        InputStream in;
+        OutputStream out;
+        final byte[] buffer = new byte[16 * 1024];
+        
+        @Setup(Level.Trial)
+        public void connect(Server server) throws IOException {
+            port = server.httpServer.getPort();
+            if (connection.equals("keepAlive")) {
+                open();
+            }
+        }
+        
+        @TearDown(Level.Trial)
+        public void close() throws IOException {
+            if (socket != null) {
+                socket.close();
+            }
+        }
+        
+        void open() throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setTcpNoDelay(true);
+            in = new BufferedInputStream(socket.getInputStream(), buffer.length);
+            out = new BufferedOutputStream(socket.getOutputStream());
+        }
+        
+        // Sends one request and drains the response, returns the body length
+        long exchange(String connectionHeader) throws IOException {
+            out.write(("GET /api/status HTTP/1.1\r\nHost: 127.0.0.1\r\nConnection: " + connectionHeader + "\r\n\r\n")
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            
+            long contentLength = 0;
+            String line;
+            while (!(line = readLine()).isEmpty()) {
+                if (line.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                    contentLength = Long.parseLong(line.substring(15).trim());
+                }
+            }
+            long remaining = contentLength;
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    throw new EOFException("Connection closed mid-body");
+                }
+                remaining -= read;
+            }
+            return contentLength;
+        }
+        
+        private String readLine() throws IOException {
+            StringBuilder line = new StringBuilder();
+            int c;
+            while ((c = in.read()) != '\n') {
+                if (c < 0) {
+                    throw new EOFException("Connection closed mid-head");
+                }
+                if (c != '\r') {
+                    line.append((char) c);
+                }
+            }
+            return line.toString();
+        }
+    }
+    
+    @Benchmark
+    public long status(Client client) throws IOException {
+        if (client.connection.equals("keepAlive")) {
+            return client.exchange("keep-alive");
+        }
+        // Handshake, one request, teardown
+        client.open();
+        try {
+            return client.exchange("close");
+        } finally {
+            client.socket.close();
+            client.socket = null;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.seniorresourcepacks;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Shared setup for the benchmarks: scratch folders, synthetic packs and a logger that
+ * stays quiet so console output does not end up in the measurements.
+ */
+final class BenchmarkFixtures {
+    
+    private BenchmarkFixtures() {
+    }
+    
+    static File createTempFolder(String prefix) throws IOException {
+        return Files.createTempDirectory(prefix).toFile();
+    }
+    
+    // Random content, so nothing downstream can take a shortcut on repetitive data
+    static File createPack(File folder, String name, long size) throws IOException {
+        File pack = new File(folder, name);
+        Random random = new Random(size);
+        byte[] chunk = new byte[64 * 1024];
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(pack))) {
+            long written = 0;
+            while (written < size) {
+                random.nextBytes(chunk);
+                int length = (int) Math.min(chunk.length, size - written);
+                out.write(chunk, 0, length);
+                written += length;
+            }
+        }
+        return pack;
+    }
+    
+    static Logger quietLogger() {
+        Logger logger = Logger.getLogger("SeniorResourcePacks-Benchmark");
+        logger.setLevel(Level.WARNING);
+        return logger;
+    }
+    
+    static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
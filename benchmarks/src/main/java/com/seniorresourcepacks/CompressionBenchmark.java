@@ -0,0 +1,147 @@
+package com.seniorresourcepacks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Dashboard and API responses over loopback with and without Content-Encoding: the page
+ * shell and /api/packs (compressed once up front) and the metrics text (compressed per
+ * request). The setup prints the body size of each encoding next to the latency results.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompressionBenchmark {
+    
+    @Param({"identity", "gzip", "deflate"})
+    public String encoding;
+    
+    @Param({"/", "/api/packs", "/api/metrics"})
+    public String path;
+    
+    private File folder;
+    private PackHttpServer httpServer;
+    private Socket socket;
+    private InputStream in;
+    private OutputStream out;
+    private byte[] request;
+    private final byte[] buffer = new byte[64 * 1024];
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // /api/packs for a folder of 2,000 packs, a few of them loaded
+        folder = BenchmarkFixtures.createTempFolder("srp-compression");
+        List<ResourcePackInfo> loaded = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            File pack = BenchmarkFixtures.createPack(folder, "pack-" + i + ".zip", 64);
+            if (i < 3) {
+                loaded.add(new ResourcePackInfo(pack.getName(), "http://127.0.0.1:8080/" + pack.getName(), PackHasher.sha1(pack), pack));
+            }
+        }
+        PackFolderListing listing = new PackFolderListing(folder, BenchmarkFixtures.quietLogger());
+        DashboardRenderer.PacksJson packsJson = DashboardRenderer.renderPacks(listing.get(), new PackRegistry(loaded, Map.of(), false, true), folder);
+        
+        // Metrics with a few series so the text has a realistic size
+        PackMetrics metrics = new PackMetrics();
+        for (int status : new int[]{200, 206, 304, 404}) {
+            metrics.recordRequest(status, 2_000_000, 500_000);
+        }
+        Map<String, Number> gauges = new LinkedHashMap<>();
+        gauges.put("http_active_connections", 12);
+        gauges.put("packs_loaded", 3);
+        
+        PackHttpServer.Settings settings = new PackHttpServer.Settings();
+        settings.keepAliveTimeoutMillis = 60_000;
+        settings.maxRequestsPerConnection = Integer.MAX_VALUE;
+        httpServer = new PackHttpServer(BenchmarkFixtures.quietLogger(), (request, response) -> {
+            if (request.path.equals("/api/packs")) {
+                response.send(200, "application/json", packsJson.body);
+            } else if (request.path.equals("/api/metrics")) {
+                response.send(200, "text/plain; version=0.0.4; charset=UTF-8", metrics.render(gauges).getBytes(StandardCharsets.UTF_8));
+            } else {
+                response.send(200, "text/html; charset=UTF-8", DashboardRenderer.SHELL);
+            }
+        }, settings);
+        httpServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        
+        socket = new Socket(InetAddress.getLoopbackAddress(), httpServer.getPort());
+        socket.setTcpNoDelay(true);
+        in = new BufferedInputStream(socket.getInputStream(), buffer.length);
+        out = new BufferedOutputStream(socket.getOutputStream());
+        request = ("GET " + path + " HTTP/1.1\r\nHost: 127.0.0.1\r\n"
+                + (encoding.equals("identity") ? "" : "Accept-Encoding: " + encoding + "\r\n") + "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        
+        // Sizes go to the benchmark log, where they end up next to the timings
+        byte[] metricsBody = metrics.render(gauges).getBytes(StandardCharsets.UTF_8);
+        System.out.println();
+        System.out.println("Body sizes (identity / gzip / deflate):");
+        printSizes("/", DashboardRenderer.SHELL);
+        printSizes("/api/packs", packsJson.body);
+        System.out.println("  /api/metrics: " + metricsBody.length + " / "
+                + HttpCompression.compress(metricsBody, HttpCompression.GZIP, Deflater.DEFAULT_COMPRESSION).length + " / "
+                + HttpCompression.compress(metricsBody, HttpCompression.DEFLATE, Deflater.DEFAULT_COMPRESSION).length + " bytes");
+    }
+    
+    private static void printSizes(String path, HttpCompression.Encoded body) {
+        System.out.println("  " + path + ": " + body.identity.length + " / " + body.gzip.length + " / " + body.deflate.length + " bytes");
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        socket.close();
+        httpServer.stop();
+        BenchmarkFixtures.deleteRecursively(folder);
+    }
+    
+    // One request on a keep-alive connection, returns the bytes on the wire for the body
+    @Benchmark
+    public long request() throws IOException {
+        out.write(request);
+        out.flush();
+        
+        long contentLength = 0;
+        String line;
+        while (!(line = readLine()).isEmpty()) {
+            if (line.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                contentLength = Long.parseLong(line.substring(15).trim());
+            }
+        }
+        long remaining = contentLength;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                throw new EOFException("Connection closed mid-body");
+            }
+            remaining -= read;
+        }
+        return contentLength;
+    }
+    
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c < 0) {
+                throw new EOFException("Connection closed mid-head");
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+}
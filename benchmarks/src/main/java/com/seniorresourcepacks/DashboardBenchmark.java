@@ -0,0 +1,79 @@
+package com.seniorresourcepacks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dashboard requests for a pack folder with a few or a few thousand packs, a handful of
+ * which are loaded: the cached page shell, a refresh of /api/packs that hits the cache, and
+ * rebuilding /api/packs after the folder or the loaded packs changed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DashboardBenchmark {
+    
+    @Param({"10", "2000"})
+    public int packCount;
+    
+    private File folder;
+    private PackRegistry packs;
+    private PackFolderListing listing;
+    private DashboardRenderer.PacksJson packsJson;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        folder = BenchmarkFixtures.createTempFolder("srp-dashboard");
+        List<ResourcePackInfo> loaded = new ArrayList<>();
+        for (int i = 0; i < packCount; i++) {
+            File pack = BenchmarkFixtures.createPack(folder, "pack-" + i + ".zip", 1024);
+            if (i < 3) {
+                loaded.add(new ResourcePackInfo(pack.getName(), "http://127.0.0.1:8080/" + pack.getName(), PackHasher.sha1(pack), pack));
+            }
+        }
+        packs = new PackRegistry(loaded, Map.of(), false, true);
+        listing = new PackFolderListing(folder, BenchmarkFixtures.quietLogger());
+        listing.startWatching();
+        packsJson = DashboardRenderer.renderPacks(listing.get(), packs, folder);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        listing.close();
+        BenchmarkFixtures.deleteRecursively(folder);
+    }
+    
+    // A page hit, the shell is encoded once so this only reads a constant
+    @Benchmark
+    public byte[] shell() {
+        return DashboardRenderer.SHELL.identity;
+    }
+    
+    // A dashboard refresh while nothing changed, what every open page costs every few seconds
+    @Benchmark
+    public byte[] packsCached() {
+        PackFolderListing.Snapshot snapshot = listing.get();
+        DashboardRenderer.PacksJson cached = packsJson;
+        if (!cached.isFor(snapshot, packs)) {
+            cached = DashboardRenderer.renderPacks(snapshot, packs, folder);
+            packsJson = cached;
+        }
+        return cached.body.identity;
+    }
+    
+    // The first refresh after a change: list the folder again and render the document
+    @Benchmark
+    public byte[] packsRebuild() {
+        listing.invalidate();
+        return DashboardRenderer.renderPacks(listing.get(), packs, folder).body.identity;
+    }
+}
@@ -0,0 +1,138 @@
+package com.seniorresourcepacks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pack download path end to end: a real PackHttpServer on loopback with the same
+ * PackDownloadHandler the plugin uses, driven by minimal keep-alive clients. Run with
+ * -t N to measure N concurrent downloaders.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DownloadBenchmark {
+    
+    private static final String PACK_NAME = "pack.zip";
+    
+    @State(Scope.Benchmark)
+    public static class Server {
+        // 64 KB and 8 MB packs
+        @Param({"65536", "8388608"})
+        public long packSize;
+        
+        File folder;
+        PackHttpServer httpServer;
+        String etag;
+        
+        @Setup(Level.Trial)
+        public void start() throws IOException {
+            folder = BenchmarkFixtures.createTempFolder("srp-download");
+            File pack = BenchmarkFixtures.createPack(folder, PACK_NAME, packSize);
+            byte[] hash = PackHasher.sha1(pack);
+            etag = "\"" + PackHasher.toHex(hash) + "\"";
+            PackRegistry registry = new PackRegistry(
+                    List.of(new ResourcePackInfo(PACK_NAME, "http://127.0.0.1/" + PACK_NAME, hash, pack)), Map.of(), false, true);
+            
+            PackDownloadHandler handler = new PackDownloadHandler(BenchmarkFixtures.quietLogger(), () -> registry,
+                    folder, new PackMetrics(), new DeliveryTimeline());
+            PackHttpServer.Settings settings = new PackHttpServer.Settings();
+            settings.keepAliveTimeoutMillis = 60_000;
+            settings.maxRequestsPerConnection = Integer.MAX_VALUE;
+            settings.metrics = new PackMetrics();
+            httpServer = new PackHttpServer(BenchmarkFixtures.quietLogger(), handler::handle, settings);
+            httpServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        }
+        
+        @TearDown(Level.Trial)
+        public void stop() throws IOException {
+            httpServer.stop();
+            BenchmarkFixtures.deleteRecursively(folder);
+        }
+    }
+    
+    @State(Scope.Thread)
+    public static class Client {
+        Socket socket;
+        InputStream in;
+        OutputStream out;
+        final byte[] buffer = new byte[64 * 1024];
+        
+        @Setup(Level.Trial)
+        public void connect(Server server) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), server.httpServer.getPort());
+            socket.setTcpNoDelay(true);
+            in = new BufferedInputStream(socket.getInputStream(), buffer.length);
+            out = new BufferedOutputStream(socket.getOutputStream());
+        }
+        
+        @TearDown(Level.Trial)
+        public void close() throws IOException {
+            socket.close();
+        }
+        
+        // Sends one request and drains the response, returns the body length
+        long exchange(String extraHeaders) throws IOException {
+            out.write(("GET /" + PACK_NAME + " HTTP/1.1\r\nHost: 127.0.0.1\r\n" + extraHeaders + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            
+            long contentLength = 0;
+            String line;
+            while (!(line = readLine()).isEmpty()) {
+                if (line.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                    contentLength = Long.parseLong(line.substring(15).trim());
+                }
+            }
+            long remaining = contentLength;
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    throw new EOFException("Connection closed mid-body");
+                }
+                remaining -= read;
+            }
+            return contentLength;
+        }
+        
+        private String readLine() throws IOException {
+            StringBuilder line = new StringBuilder();
+            int c;
+            while ((c = in.read()) != '\n') {
+                if (c < 0) {
+                    throw new EOFException("Connection closed mid-head");
+                }
+                if (c != '\r') {
+                    line.append((char) c);
+                }
+            }
+            return line.toString();
+        }
+    }
+    
+    @Benchmark
+    public long fullDownload(Client client) throws IOException {
+        return client.exchange("");
+    }
+    
+    // Resume of the second half of the pack
+    @Benchmark
+    public long rangeDownload(Server server, Client client) throws IOException {
+        return client.exchange("Range: bytes=" + server.packSize / 2 + "-\r\n");
+    }
+    
+    // A client that already has the pack revalidating it
+    @Benchmark
+    public long notModified(Server server, Client client) throws IOException {
+        return client.exchange("If-None-Match: " + server.etag + "\r\n");
+    }
+}
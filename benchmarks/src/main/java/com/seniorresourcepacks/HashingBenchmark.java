@@ -0,0 +1,94 @@
+package com.seniorresourcepacks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pack hashing as done on load and reload, streamed through PackHasher against the
+ * original read-the-whole-file implementation. Reports MB/s as the "megabytes" secondary
+ * result and prints the peak heap of each run; add -prof gc for allocation rates.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// Enough heap for readAll to hold a 1 GB pack at all
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class HashingBenchmark {
+    
+    // 10 MB, 200 MB and 1 GB packs
+    @Param({"10485760", "209715200", "1073741824"})
+    public long packSize;
+    
+    // "streaming" is PackHasher, "readAll" the Files.readAllBytes + MessageDigest it replaced
+    @Param({"streaming", "readAll"})
+    public String implementation;
+    
+    private File folder;
+    private File pack;
+    private long peakHeapBytes;
+    
+    // Bytes hashed, which JMH turns into MB/s next to the ops/s
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Volume {
+        public double megabytes;
+        
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+        }
+    }
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        folder = BenchmarkFixtures.createTempFolder("srp-hash");
+        pack = BenchmarkFixtures.createPack(folder, "pack.zip", packSize);
+    }
+    
+    @Setup(Level.Iteration)
+    public void resetPeakHeap() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+    }
+    
+    @TearDown(Level.Iteration)
+    public void recordPeakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        peakHeapBytes = Math.max(peakHeapBytes, peak);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        // Goes to the benchmark log, next to the timings
+        System.out.println();
+        System.out.println("Peak heap (" + implementation + ", " + packSize / 1024 / 1024 + " MB): " + peakHeapBytes / 1024 / 1024 + " MB");
+        BenchmarkFixtures.deleteRecursively(folder);
+    }
+    
+    @Benchmark
+    public byte[] sha1(Volume volume) throws IOException, NoSuchAlgorithmException {
+        byte[] hash = implementation.equals("readAll")
+                ? MessageDigest.getInstance("SHA-1").digest(Files.readAllBytes(pack.toPath()))
+                : PackHasher.sha1(pack);
+        volume.megabytes += packSize / (1024.0 * 1024.0);
+        return hash;
+    }
+}
@@ -0,0 +1,396 @@
+package com.seniorresourcepacks;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reproduces a restart-time join wave offline: the plugin's HTTP server and download
+ * handler on loopback, a synthetic pack, and N clients that ramp up over time, each
+ * limited to its own link speed, some of them dropping mid-download and resuming with
+ * a Range request. Every download is checked against the pack hash. A list of client
+ * counts (--clients 10,100,500) runs one wave per count against the same server and ends
+ * with a table comparing them.
+ *
+ * Run with: java -cp benchmarks/target/benchmarks.jar com.seniorresourcepacks.JoinWaveSimulator [--option value ...]
+ */
+public final class JoinWaveSimulator {
+    
+    private static final String PACK_NAME = "joinwave.zip";
+    
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+    
+    static {
+        // One wave per comma-separated count, run one after the other
+        DEFAULTS.put("clients", "200");
+        DEFAULTS.put("pack-size-mb", "20");
+        DEFAULTS.put("ramp-up-seconds", "10");
+        // Client link speeds in KB/s, assigned round-robin; 0 means unlimited
+        DEFAULTS.put("link-kbps", "1024,4096,16384");
+        // Share of clients that drop once mid-download and resume
+        DEFAULTS.put("disconnect-rate", "0.1");
+        DEFAULTS.put("timeout-seconds", "600");
+        // Server side, same meaning as the plugin config
+        DEFAULTS.put("max-connections", "512");
+        DEFAULTS.put("global-kbps", "0");
+        DEFAULTS.put("per-connection-kbps", "0");
+        DEFAULTS.put("thread-mode", "auto");
+    }
+    
+    private static final class Result {
+        volatile long completionMillis = -1;
+        volatile long firstByteMillis = -1;
+        volatile String error;
+        volatile boolean resumed;
+    }
+    
+    // One line of the closing table
+    private static final class Summary {
+        final int clients;
+        final int peakActive;
+        final int completed;
+        final double megabytesPerSecond;
+        final long firstByteP99;
+        final long completionP99;
+        
+        Summary(int clients, int peakActive, int completed, double megabytesPerSecond, long firstByteP99, long completionP99) {
+            this.clients = clients;
+            this.peakActive = peakActive;
+            this.completed = completed;
+            this.megabytesPerSecond = megabytesPerSecond;
+            this.firstByteP99 = firstByteP99;
+            this.completionP99 = completionP99;
+        }
+    }
+    
+    private JoinWaveSimulator() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int[] clientCounts = Arrays.stream(options.get("clients").split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+        long packSize = (long) (Double.parseDouble(options.get("pack-size-mb")) * 1024 * 1024);
+        
+        File folder = BenchmarkFixtures.createTempFolder("srp-joinwave");
+        try {
+            System.out.println("Generating " + packSize / 1024 + " KB synthetic pack...");
+            File pack = BenchmarkFixtures.createPack(folder, PACK_NAME, packSize);
+            byte[] hash = PackHasher.sha1(pack);
+            PackRegistry registry = new PackRegistry(
+                    List.of(new ResourcePackInfo(PACK_NAME, "http://127.0.0.1/" + PACK_NAME, hash, pack)), Map.of(), false, true);
+            
+            BandwidthLimiter limiter = new BandwidthLimiter();
+            limiter.configure(Long.parseLong(options.get("global-kbps")) * 1024, Long.parseLong(options.get("per-connection-kbps")) * 1024, 0, 0);
+            // Simulated drops make the server log broken pipes, which are expected here
+            Logger logger = BenchmarkFixtures.quietLogger();
+            logger.setLevel(Level.OFF);
+            PackHttpServer.Settings settings = new PackHttpServer.Settings();
+            settings.maxConnections = Integer.parseInt(options.get("max-connections"));
+            settings.threadMode = options.get("thread-mode");
+            settings.bandwidthLimiter = limiter;
+            PackDownloadHandler handler = new PackDownloadHandler(logger, () -> registry,
+                    folder, new PackMetrics(), new DeliveryTimeline());
+            PackHttpServer server = new PackHttpServer(logger, handler::handle, settings);
+            server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            
+            List<Summary> summaries = new ArrayList<>();
+            try {
+                for (int clients : clientCounts) {
+                    System.out.println();
+                    System.out.println("Starting " + clients + " clients over " + options.get("ramp-up-seconds") + " s against port " + server.getPort() + " "
+                            + "(" + (server.usesVirtualThreads() ? "virtual" : "platform") + " server threads, max " + settings.maxConnections + " connections)");
+                    summaries.add(runWave(clients, options, server.getPort(), packSize, hash));
+                }
+            } finally {
+                server.stop();
+            }
+            if (summaries.size() > 1) {
+                reportSummaries(summaries);
+            }
+        } finally {
+            BenchmarkFixtures.deleteRecursively(folder);
+        }
+    }
+    
+    private static Summary runWave(int clients, Map<String, String> options, int port, long packSize, byte[] hash) throws InterruptedException {
+        long rampUpMillis = (long) (Double.parseDouble(options.get("ramp-up-seconds")) * 1000);
+        long[] linkSpeeds = Arrays.stream(options.get("link-kbps").split(",")).mapToLong(s -> Long.parseLong(s.trim()) * 1024).toArray();
+        double disconnectRate = Double.parseDouble(options.get("disconnect-rate"));
+        long timeoutSeconds = Long.parseLong(options.get("timeout-seconds"));
+        String etag = "\"" + PackHasher.toHex(hash) + "\"";
+        
+        Result[] results = new Result[clients];
+        AtomicLong bytesReceived = new AtomicLong();
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peakActive = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(clients);
+        Random random = new Random(42);
+        long start = System.nanoTime();
+        
+        for (int i = 0; i < clients; i++) {
+            Result result = new Result();
+            results[i] = result;
+            long startDelay = clients > 1 ? rampUpMillis * i / (clients - 1) : 0;
+            long linkSpeed = linkSpeeds[i % linkSpeeds.length];
+            // Fraction of the body after which this client drops, or -1 to never drop
+            double dropAt = random.nextDouble() < disconnectRate ? 0.1 + random.nextDouble() * 0.8 : -1;
+            
+            Thread client = new Thread(() -> {
+                try {
+                    Thread.sleep(startDelay);
+                    int now = active.incrementAndGet();
+                    peakActive.accumulateAndGet(now, Math::max);
+                    runClient(port, packSize, hash, etag, linkSpeed, dropAt, result, bytesReceived);
+                } catch (InterruptedException e) {
+                    result.error = "interrupted";
+                } finally {
+                    active.decrementAndGet();
+                    done.countDown();
+                }
+            }, "JoinWave-Client-" + i);
+            client.setDaemon(true);
+            client.start();
+        }
+        
+        boolean finished = done.await(timeoutSeconds, TimeUnit.SECONDS);
+        long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return report(results, finished, wallMillis, bytesReceived.get(), peakActive.get());
+    }
+    
+    private static void runClient(int port, long packSize, byte[] expectedHash, String etag, long linkSpeed, double dropAt,
+                                  Result result, AtomicLong bytesReceived) {
+        long start = System.nanoTime();
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        
+        try {
+            long received = 0;
+            int attempts = 0;
+            while (received < packSize) {
+                if (++attempts > 5) {
+                    result.error = "gave up after " + (attempts - 1) + " attempts";
+                    return;
+                }
+                // Only the first attempt drops, the resume runs to the end
+                long dropAfter = dropAt >= 0 && attempts == 1 ? (long) (packSize * dropAt) : Long.MAX_VALUE;
+                received += download(port, received, packSize, etag, linkSpeed, dropAfter, md, result, start, bytesReceived);
+                if (received < packSize) {
+                    result.resumed = true;
+                }
+            }
+            if (!Arrays.equals(md.digest(), expectedHash)) {
+                result.error = "hash mismatch";
+                return;
+            }
+            result.completionMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        } catch (IOException e) {
+            result.error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+    }
+    
+    // One request from offset; returns the body bytes received before finishing or dropping
+    private static long download(int port, long offset, long packSize, String etag, long linkSpeed, long dropAfter,
+                                 MessageDigest md, Result result, long start, AtomicLong bytesReceived) throws IOException {
+        try (Socket socket = new Socket()) {
+            // A small receive window makes a slow reader push back on the server, like a real slow link
+            socket.setReceiveBufferSize(64 * 1024);
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 10_000);
+            socket.setSoTimeout(60_000);
+            InputStream in = new BufferedInputStream(socket.getInputStream(), 64 * 1024);
+            OutputStream out = socket.getOutputStream();
+            
+            String request = "GET /" + PACK_NAME + " HTTP/1.1\r\nHost: 127.0.0.1\r\nUser-Agent: JoinWaveSimulator\r\nConnection: close\r\n";
+            if (offset > 0) {
+                request += "Range: bytes=" + offset + "-\r\nIf-Range: " + etag + "\r\n";
+            }
+            out.write((request + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            
+            String statusLine = readLine(in);
+            if (result.firstByteMillis < 0) {
+                result.firstByteMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            }
+            int expectedStatus = offset > 0 ? 206 : 200;
+            if (!statusLine.startsWith("HTTP/1.1 " + expectedStatus)) {
+                throw new IOException("unexpected status '" + statusLine + "'");
+            }
+            long contentLength = -1;
+            String line;
+            while (!(line = readLine(in)).isEmpty()) {
+                if (line.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                    contentLength = Long.parseLong(line.substring(15).trim());
+                }
+            }
+            if (contentLength != packSize - offset) {
+                throw new IOException("unexpected Content-Length " + contentLength);
+            }
+            
+            byte[] buffer = new byte[16 * 1024];
+            long received = 0;
+            long readStart = System.nanoTime();
+            while (received < contentLength) {
+                if (received >= dropAfter) {
+                    return received; // Simulated disconnect, the socket closes here
+                }
+                int toRead = (int) Math.min(buffer.length, Math.min(contentLength - received, dropAfter - received));
+                int read = in.read(buffer, 0, toRead);
+                if (read < 0) {
+                    throw new EOFException("connection closed after " + received + " of " + contentLength + " bytes");
+                }
+                md.update(buffer, 0, read);
+                received += read;
+                bytesReceived.addAndGet(read);
+                
+                if (linkSpeed > 0) {
+                    // Pace reads to the simulated link speed
+                    long dueNanos = received * 1_000_000_000L / linkSpeed;
+                    long aheadNanos = dueNanos - (System.nanoTime() - readStart);
+                    if (aheadNanos > 1_000_000) {
+                        try {
+                            TimeUnit.NANOSECONDS.sleep(aheadNanos);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new InterruptedIOException();
+                        }
+                    }
+                }
+            }
+            return received;
+        }
+    }
+    
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c < 0) {
+                throw new EOFException("connection closed mid-head");
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+    
+    private static Summary report(Result[] results, boolean finished, long wallMillis, long bytesReceived, int peakActive) {
+        List<Long> completions = new ArrayList<>();
+        List<Long> firstBytes = new ArrayList<>();
+        Map<String, Integer> errors = new LinkedHashMap<>();
+        int resumed = 0;
+        int unfinished = 0;
+        for (Result result : results) {
+            if (result.completionMillis >= 0) {
+                completions.add(result.completionMillis);
+            } else if (result.error != null) {
+                errors.merge(result.error, 1, Integer::sum);
+            } else {
+                unfinished++;
+            }
+            if (result.firstByteMillis >= 0) {
+                firstBytes.add(result.firstByteMillis);
+            }
+            if (result.resumed) {
+                resumed++;
+            }
+        }
+        
+        System.out.println();
+        System.out.println("=== Join wave results ===");
+        System.out.println("Clients:          " + results.length + " (peak " + peakActive + " concurrent)");
+        System.out.println("Completed:        " + completions.size() + (resumed > 0 ? " (" + resumed + " resumed after a drop)" : ""));
+        System.out.println("Errors:           " + (results.length - completions.size() - unfinished)
+                + String.format(" (%.2f%% error rate)", 100.0 * (results.length - completions.size()) / results.length));
+        if (!finished) {
+            System.out.println("Timed out:        " + unfinished + " client(s) still running at the deadline");
+        }
+        for (Map.Entry<String, Integer> error : errors.entrySet()) {
+            System.out.println("  " + error.getValue() + " x " + error.getKey());
+        }
+        System.out.println("Wall time:        " + wallMillis + " ms");
+        double megabytesPerSecond = bytesReceived / 1048576.0 / Math.max(0.001, wallMillis / 1000.0);
+        System.out.println(String.format("Throughput:       %.2f MB/s (%d MB received)", megabytesPerSecond, bytesReceived / 1048576));
+        System.out.println("Time to 1st byte: " + formatPercentiles(firstBytes));
+        System.out.println("Completion time:  " + formatPercentiles(completions));
+        return new Summary(results.length, peakActive, completions.size(), megabytesPerSecond,
+                p99(firstBytes), p99(completions));
+    }
+    
+    private static void reportSummaries(List<Summary> summaries) {
+        System.out.println();
+        System.out.println("=== Summary ===");
+        System.out.println(String.format("%8s %10s %10s %12s %14s %16s", "clients", "peak", "completed", "MB/s", "p99 TTFB ms", "p99 complete ms"));
+        for (Summary summary : summaries) {
+            System.out.println(String.format("%8d %10d %10d %12.1f %14d %16d", summary.clients, summary.peakActive, summary.completed,
+                    summary.megabytesPerSecond, summary.firstByteP99, summary.completionP99));
+        }
+    }
+    
+    // -1 when there are no samples
+    private static long p99(List<Long> values) {
+        if (values.isEmpty()) {
+            return -1;
+        }
+        return percentile(values.stream().mapToLong(Long::longValue).sorted().toArray(), 0.99);
+    }
+    
+    private static String formatPercentiles(List<Long> values) {
+        if (values.isEmpty()) {
+            return "-";
+        }
+        long[] sorted = values.stream().mapToLong(Long::longValue).sorted().toArray();
+        return "p50 " + percentile(sorted, 0.50) + " ms, p95 " + percentile(sorted, 0.95) + " ms, p99 " + percentile(sorted, 0.99)
+                + " ms, max " + sorted[sorted.length - 1] + " ms";
+    }
+    
+    // Nearest-rank, same as the plugin's delivery percentiles
+    private static long percentile(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+    
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--help") || arg.equals("-h")) {
+                printUsage();
+                System.exit(0);
+            }
+            if (!arg.startsWith("--") || i + 1 >= args.length || !DEFAULTS.containsKey(arg.substring(2))) {
+                System.err.println("Unknown or incomplete option: " + arg);
+                printUsage();
+                System.exit(2);
+            }
+            options.put(arg.substring(2), args[++i]);
+        }
+        return options;
+    }
+    
+    private static void printUsage() {
+        System.out.println("Options (default):");
+        for (Map.Entry<String, String> option : DEFAULTS.entrySet()) {
+            System.out.println("  --" + option.getKey() + " (" + option.getValue() + ")");
+        }
+    }
+}
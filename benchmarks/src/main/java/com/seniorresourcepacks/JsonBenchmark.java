@@ -0,0 +1,34 @@
+package com.seniorresourcepacks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the config body the dashboard posts to /api/config.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonBenchmark {
+    
+    private static final String CONFIG_BODY =
+            "{\"server_ip\":\"203.0.113.7\",\"http_port\":\"8080\",\"force_pack\":true,\"auto_apply\":false}";
+    
+    @Benchmark
+    public void configUpdate(Blackhole blackhole) {
+        blackhole.consume(SimpleJson.extractValue(CONFIG_BODY, "server_ip"));
+        blackhole.consume(SimpleJson.extractValue(CONFIG_BODY, "http_port"));
+        blackhole.consume(SimpleJson.extractValue(CONFIG_BODY, "force_pack"));
+        blackhole.consume(SimpleJson.extractValue(CONFIG_BODY, "auto_apply"));
+    }
+    
+    @Benchmark
+    public String missingKey() {
+        return SimpleJson.extractValue(CONFIG_BODY, "not_there");
+    }
+}
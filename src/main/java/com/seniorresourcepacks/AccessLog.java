@@ -0,0 +1,240 @@
+package com.seniorresourcepacks;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * HTTP access log kept off the request path. Connection threads drop one entry per request
+ * into a bounded lock-free ring; a background thread drains it in batches and appends them
+ * to a size-rotated file as JSON lines. When the ring is full, entries are counted and
+ * dropped rather than blocking a download.
+ */
+final class AccessLog {
+    
+    // The writer naps briefly while requests keep coming and sleeps longer once it is idle
+    private static final long BUSY_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long IDLE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    
+    static final class Entry {
+        final long timestamp;
+        final String remoteAddress;
+        final String method;
+        final String path;
+        final int status;
+        final long bytes;
+        final long durationNanos;
+        
+        Entry(long timestamp, String remoteAddress, String method, String path, int status, long bytes, long durationNanos) {
+            this.timestamp = timestamp;
+            this.remoteAddress = remoteAddress;
+            this.method = method;
+            this.path = path;
+            this.status = status;
+            this.bytes = bytes;
+            this.durationNanos = durationNanos;
+        }
+    }
+    
+    private final File file;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final Logger logger;
+    
+    // Multi-producer, single-consumer ring: producers claim a sequence with a CAS on tail,
+    // the writer frees slots and advances head. A claimed but not yet published slot reads
+    // as null and is simply picked up on the next drain.
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head = 0;
+    private final LongAdder dropped = new LongAdder();
+    
+    private volatile boolean echoToConsole;
+    private volatile boolean running;
+    private volatile Thread writerThread;
+    private OutputStream out;
+    private long fileBytes;
+    
+    AccessLog(File file, int capacity, long maxFileBytes, int maxFiles, Logger logger) {
+        this.file = file;
+        this.maxFileBytes = Math.max(1024, maxFileBytes);
+        this.maxFiles = Math.max(1, maxFiles);
+        this.logger = logger;
+        // Rounded up to a power of two so the slot index is a mask
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+    
+    // Also writes each entry to the console, from the writer thread
+    void setEchoToConsole(boolean echoToConsole) {
+        this.echoToConsole = echoToConsole;
+    }
+    
+    long getDroppedCount() {
+        return dropped.sum();
+    }
+    
+    void start() throws IOException {
+        File folder = file.getParentFile();
+        if (folder != null && !folder.isDirectory() && !folder.mkdirs()) {
+            throw new IOException("Could not create log folder " + folder);
+        }
+        openWriter();
+        running = true;
+        writerThread = new Thread(this::writeLoop, "SeniorResourcePacks-AccessLog");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+    
+    // Stops the writer after a final drain, so nothing recorded before this is lost
+    void close() {
+        running = false;
+        Thread thread = writerThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    // Called on connection threads, never blocks
+    void record(String remoteAddress, String method, String path, int status, long bytes, long durationNanos) {
+        Entry entry = new Entry(System.currentTimeMillis(), remoteAddress, method, path, status, bytes, durationNanos);
+        while (true) {
+            long sequence = tail.get();
+            if (sequence - head >= slots.length()) {
+                dropped.increment();
+                return;
+            }
+            if (tail.compareAndSet(sequence, sequence + 1)) {
+                slots.set((int) (sequence & mask), entry);
+                // A burst wakes an idle writer early instead of waiting out its interval
+                if (sequence - head == slots.length() / 2) {
+                    LockSupport.unpark(writerThread);
+                }
+                return;
+            }
+        }
+    }
+    
+    private void writeLoop() {
+        try {
+            int written = 0;
+            while (running) {
+                LockSupport.parkNanos(written > 0 ? BUSY_INTERVAL_NANOS : IDLE_INTERVAL_NANOS);
+                written = drain();
+            }
+            drain();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Access log writer stopped, further requests are not logged", e);
+            running = false;
+        } finally {
+            try {
+                out.close();
+            } catch (IOException e) {
+                logger.log(Level.FINE, "Error closing access log", e);
+            }
+        }
+    }
+    
+    // One flush per batch, however many requests came in since the last one; returns the batch size
+    private int drain() throws IOException {
+        StringBuilder line = new StringBuilder(256);
+        int written = 0;
+        while (true) {
+            int index = (int) (head & mask);
+            Entry entry = slots.get(index);
+            if (entry == null) {
+                break;
+            }
+            slots.set(index, null);
+            head = head + 1;
+            
+            line.setLength(0);
+            format(entry, line);
+            if (echoToConsole) {
+                logger.info("HTTP " + line);
+            }
+            line.append('\n');
+            byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+            if (fileBytes + bytes.length > maxFileBytes && fileBytes > 0) {
+                rotate();
+            }
+            out.write(bytes);
+            fileBytes += bytes.length;
+            written++;
+        }
+        if (written > 0) {
+            out.flush();
+        }
+        return written;
+    }
+    
+    // access.log -> access.log.1 -> ... -> access.log.<maxFiles>, the oldest is deleted
+    private void rotate() throws IOException {
+        out.close();
+        File oldest = new File(file.getPath() + "." + maxFiles);
+        Files.deleteIfExists(oldest.toPath());
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            File older = new File(file.getPath() + "." + i);
+            if (older.isFile()) {
+                Files.move(older.toPath(), new File(file.getPath() + "." + (i + 1)).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(file.toPath(), new File(file.getPath() + ".1").toPath(), StandardCopyOption.REPLACE_EXISTING);
+        openWriter();
+    }
+    
+    private void openWriter() throws IOException {
+        out = new BufferedOutputStream(new FileOutputStream(file, true), 64 * 1024);
+        fileBytes = file.length();
+    }
+    
+    // {"ts":"...","remote":"...","method":"GET","path":"...","status":200,"bytes":123,"ms":4.2}
+    static void format(Entry entry, StringBuilder out) {
+        out.append("{\"ts\":\"").append(Instant.ofEpochMilli(entry.timestamp)).append('"');
+        out.append(",\"remote\":");
+        appendString(out, entry.remoteAddress);
+        out.append(",\"method\":");
+        appendString(out, entry.method);
+        out.append(",\"path\":");
+        appendString(out, entry.path);
+        out.append(",\"status\":").append(entry.status);
+        out.append(",\"bytes\":").append(entry.bytes);
+        out.append(",\"ms\":").append(entry.durationNanos / 1000 / 1000.0);
+        out.append('}');
+    }
+    
+    private static void appendString(StringBuilder out, String value) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,174 @@
+package com.seniorresourcepacks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token-bucket egress shaping for pack bodies: one bucket shared by every download plus
+ * one bucket per connection. Limits can be changed at any time and apply to transfers
+ * already in progress.
+ */
+final class BandwidthLimiter {
+    
+    // Largest slice handed out at once, keeps throttled writes smooth
+    static final int CHUNK_SIZE = 64 * 1024;
+    
+    /**
+     * A classic token bucket refilled continuously at bytesPerSecond, holding at most
+     * one second of tokens. A rate of 0 means unlimited.
+     */
+    static final class TokenBucket {
+        private long bytesPerSecond;
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+        
+        TokenBucket(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+            this.tokens = bytesPerSecond;
+        }
+        
+        synchronized void setRate(long bytesPerSecond) {
+            refill();
+            this.bytesPerSecond = bytesPerSecond;
+            tokens = Math.min(tokens, bytesPerSecond);
+        }
+        
+        synchronized long getRate() {
+            return bytesPerSecond;
+        }
+        
+        /**
+         * Takes up to wanted tokens, waiting until at least some are available.
+         * Returns how many were granted.
+         */
+        long take(long wanted) throws InterruptedException {
+            while (true) {
+                long waitNanos;
+                synchronized (this) {
+                    if (bytesPerSecond <= 0) {
+                        return wanted;
+                    }
+                    refill();
+                    // Never ask for more than the bucket can ever hold
+                    long request = Math.min(wanted, bytesPerSecond);
+                    if (tokens >= 1) {
+                        long granted = (long) Math.min(request, tokens);
+                        tokens -= granted;
+                        return granted;
+                    }
+                    waitNanos = (long) ((1 - tokens) * TimeUnit.SECONDS.toNanos(1) / bytesPerSecond);
+                }
+                TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, TimeUnit.MILLISECONDS.toNanos(1)));
+            }
+        }
+        
+        // Returns tokens that were granted but not used
+        synchronized void giveBack(long unused) {
+            if (bytesPerSecond > 0 && unused > 0) {
+                tokens = Math.min(bytesPerSecond, tokens + unused);
+            }
+        }
+        
+        private void refill() {
+            long now = System.nanoTime();
+            if (bytesPerSecond > 0) {
+                tokens = Math.min(bytesPerSecond, tokens + (now - lastRefill) * (double) bytesPerSecond / TimeUnit.SECONDS.toNanos(1));
+            }
+            lastRefill = now;
+        }
+    }
+    
+    /**
+     * The per-connection side of the limiter. Every grant is taken from both the
+     * connection's own bucket and the shared global bucket.
+     */
+    final class Throttle {
+        private final TokenBucket connectionBucket = new TokenBucket(perConnectionBytesPerSecond);
+        
+        long acquire(long wanted) throws InterruptedException {
+            long rate = perConnectionBytesPerSecond;
+            if (connectionBucket.getRate() != rate) {
+                connectionBucket.setRate(rate);
+            }
+            long granted = connectionBucket.take(Math.min(wanted, CHUNK_SIZE));
+            long globalGranted = globalBucket.take(granted);
+            connectionBucket.giveBack(granted - globalGranted);
+            return globalGranted;
+        }
+        
+        // Returns granted tokens a short write did not use to both buckets
+        void release(long unused) {
+            if (unused > 0) {
+                connectionBucket.giveBack(unused);
+                globalBucket.giveBack(unused);
+            }
+        }
+        
+        boolean isUnlimited() {
+            return perConnectionBytesPerSecond <= 0 && globalBucket.getRate() <= 0;
+        }
+        
+        void recordSent(long bytes) {
+            bytesSent.add(bytes);
+        }
+    }
+    
+    private final TokenBucket globalBucket = new TokenBucket(0);
+    private final LongAdder bytesSent = new LongAdder();
+    private volatile long perConnectionBytesPerSecond = 0;
+    
+    // Measured throughput, refreshed by sample()
+    private long lastSampleBytes = 0;
+    private long lastSampleTime = System.nanoTime();
+    private volatile long measuredBytesPerSecond = 0;
+    
+    /**
+     * Applies new limits, all in bytes per second with 0 meaning unlimited. With a
+     * non-zero uplink, reserved bytes are held back for game traffic and the global
+     * cap never exceeds uplink minus reserve.
+     */
+    void configure(long globalBytesPerSecond, long perConnectionBytesPerSecond, long uplinkBytesPerSecond, long reservedBytesPerSecond) {
+        long effectiveGlobal = Math.max(0, globalBytesPerSecond);
+        if (uplinkBytesPerSecond > 0) {
+            long headroomCap = Math.max(CHUNK_SIZE, uplinkBytesPerSecond - Math.max(0, reservedBytesPerSecond));
+            effectiveGlobal = effectiveGlobal > 0 ? Math.min(effectiveGlobal, headroomCap) : headroomCap;
+        }
+        globalBucket.setRate(effectiveGlobal);
+        this.perConnectionBytesPerSecond = Math.max(0, perConnectionBytesPerSecond);
+    }
+    
+    Throttle newThrottle() {
+        return new Throttle();
+    }
+    
+    long getGlobalLimit() {
+        return globalBucket.getRate();
+    }
+    
+    long getPerConnectionLimit() {
+        return perConnectionBytesPerSecond;
+    }
+    
+    long getTotalBytesSent() {
+        return bytesSent.sum();
+    }
+    
+    long getMeasuredBytesPerSecond() {
+        return measuredBytesPerSecond;
+    }
+    
+    /**
+     * Updates the measured throughput from the bytes sent since the previous call.
+     * Meant to be called on a fixed period.
+     */
+    synchronized void sample() {
+        long now = System.nanoTime();
+        long total = bytesSent.sum();
+        long elapsed = now - lastSampleTime;
+        if (elapsed > 0) {
+            measuredBytesPerSecond = (total - lastSampleBytes) * TimeUnit.SECONDS.toNanos(1) / elapsed;
+        }
+        lastSampleBytes = total;
+        lastSampleTime = now;
+    }
+}
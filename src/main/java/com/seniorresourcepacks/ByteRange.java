@@ -0,0 +1,75 @@
+package com.seniorresourcepacks;
+
+/**
+ * A single satisfiable byte range parsed from an HTTP Range header.
+ */
+final class ByteRange {
+    
+    // Returned when the header is well formed but no byte of it lies inside the file
+    static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+    
+    final long start;
+    final long end; // inclusive
+    
+    private ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+    
+    long length() {
+        return end - start + 1;
+    }
+    
+    /**
+     * Parses a Range header against a file of the given length. Returns null when the
+     * header should be ignored and the whole file sent (absent, malformed, another unit
+     * or several ranges), UNSATISFIABLE for a 416, or the clamped range otherwise.
+     */
+    static ByteRange parse(String header, long fileLength) {
+        if (header == null) {
+            return null;
+        }
+        header = header.trim();
+        if (!header.regionMatches(true, 0, "bytes=", 0, 6)) {
+            return null;
+        }
+        String spec = header.substring(6).trim();
+        if (spec.isEmpty() || spec.indexOf(',') != -1) {
+            // Multipart byteranges are not worth it for pack downloads, send the full body
+            return null;
+        }
+        
+        int dash = spec.indexOf('-');
+        if (dash == -1) {
+            return null;
+        }
+        String first = spec.substring(0, dash).trim();
+        String last = spec.substring(dash + 1).trim();
+        
+        try {
+            if (first.isEmpty()) {
+                // Suffix range: the final N bytes
+                if (last.isEmpty()) {
+                    return null;
+                }
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || fileLength == 0) {
+                    return UNSATISFIABLE;
+                }
+                return new ByteRange(Math.max(0, fileLength - suffix), fileLength - 1);
+            }
+            
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+            if (start < 0 || end < start) {
+                return null;
+            }
+            if (start >= fileLength) {
+                return UNSATISFIABLE;
+            }
+            return new ByteRange(start, Math.min(end, fileLength - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.seniorresourcepacks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * The web dashboard: a static page shell rendered once per plugin load, plus the JSON
+ * documents its script fetches from /api/status and /api/packs. Kept free of Bukkit types
+ * so everything can be rendered (and benchmarked) without a server.
+ */
+final class DashboardRenderer {
+    
+    // How often the open page polls the JSON endpoints
+    private static final int REFRESH_SECONDS = 15;
+    
+    // The shell never changes at runtime, so it is encoded, compressed and hashed exactly once
+    static final HttpCompression.Encoded SHELL = HttpCompression.Encoded.of(buildShell().getBytes(StandardCharsets.UTF_8));
+    static final String SHELL_ETAG = etag(SHELL.identity);
+    
+    // Everything /api/status shows, filled in by the caller for each request
+    static final class Model {
+        boolean serverRunning;
+        int httpPort;
+        String baseUrl;
+        int loadedPacks;
+        List<DeliveryTimeline.PackStats> deliveryStats = List.of();
+        String configuredServerIp = "";
+        int configuredPort;
+        boolean forcePack;
+        boolean autoApplyAllWorlds;
+    }
+    
+    /**
+     * The encoded /api/packs document for one folder listing and registry. Callers keep the
+     * last one and only render again when either of them was replaced.
+     */
+    static final class PacksJson {
+        final PackFolderListing.Snapshot listing;
+        final PackRegistry packs;
+        final HttpCompression.Encoded body;
+        final String etag;
+        
+        PacksJson(PackFolderListing.Snapshot listing, PackRegistry packs, byte[] body) {
+            this.listing = listing;
+            this.packs = packs;
+            this.body = HttpCompression.Encoded.of(body);
+            this.etag = etag(body);
+        }
+        
+        boolean isFor(PackFolderListing.Snapshot listing, PackRegistry packs) {
+            return this.listing == listing && this.packs == packs;
+        }
+    }
+    
+    private DashboardRenderer() {
+    }
+    
+    static byte[] renderStatus(Model model) {
+        JsonObject status = new JsonObject();
+        status.addProperty("server_running", model.serverRunning);
+        status.addProperty("http_port", model.httpPort);
+        status.addProperty("server_ip", model.baseUrl != null && model.baseUrl.contains("://") ? model.baseUrl.split("://")[1].split(":")[0] : "Auto");
+        status.addProperty("loaded_packs", model.loadedPacks);
+        
+        JsonObject config = new JsonObject();
+        config.addProperty("server_ip", model.configuredServerIp);
+        config.addProperty("http_port", model.configuredPort);
+        config.addProperty("force_pack", model.forcePack);
+        config.addProperty("auto_apply", model.autoApplyAllWorlds);
+        status.add("config", config);
+        
+        JsonArray deliveries = new JsonArray();
+        for (DeliveryTimeline.PackStats stats : model.deliveryStats) {
+            JsonObject delivery = new JsonObject();
+            delivery.addProperty("pack", stats.packName);
+            delivery.addProperty("deliveries", stats.deliveries);
+            delivery.addProperty("loaded", stats.loaded);
+            delivery.addProperty("prompt_to_download", formatPercentiles(stats.promptToDownload));
+            delivery.addProperty("download", formatPercentiles(stats.download));
+            delivery.addProperty("total", formatPercentiles(stats.total));
+            deliveries.add(delivery);
+        }
+        status.add("deliveries", deliveries);
+        return status.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    static PacksJson renderPacks(PackFolderListing.Snapshot listing, PackRegistry packs, File packsFolder) {
+        JsonArray entries = new JsonArray();
+        for (PackFolderListing.Entry entry : listing.entries) {
+            JsonObject pack = new JsonObject();
+            pack.addProperty("name", entry.name);
+            pack.addProperty("size", entry.size);
+            pack.addProperty("size_text", formatFileSize(entry.size));
+            pack.addProperty("loaded", packs.isLoaded(entry.name));
+            entries.add(pack);
+        }
+        JsonObject document = new JsonObject();
+        document.addProperty("folder", packsFolder.getAbsolutePath());
+        document.add("packs", entries);
+        return new PacksJson(listing, packs, document.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String buildShell() {
+        StringBuilder html = new StringBuilder();
+        html.append("<!DOCTYPE html>");
+        html.append("<html lang='en'>");
+        html.append("<head>");
+        html.append("<meta charset='UTF-8'>");
+        html.append("<meta name='viewport' content='width=device-width, initial-scale=1.0'>");
+        html.append("<title>CloudNord Resource Pack Manager</title>");
+        html.append("<link href='https://cdnjs.cloudflare.com/ajax/libs/font-awesome/6.0.0/css/all.min.css' rel='stylesheet'>");
+        html.append("<link href='https://fonts.googleapis.com/css2?family=Poppins:wght@300;400;500;600;700&display=swap' rel='stylesheet'>");
+        html.append("<style>");
+        html.append("* { margin: 0; padding: 0; box-sizing: border-box; }");
+        html.append("body { font-family: 'Poppins', sans-serif; background: linear-gradient(120deg, #a8edea 0%, #fed6e3 100%); min-height: 100vh; padding: 15px; }");
+        html.append(".container { max-width: 1200px; margin: 0 auto; }");
+        html.append(".header { background: white; border-radius: 16px; padding: 25px; margin-bottom: 25px; box-shadow: 0 10px 30px rgba(0,0,0,0.1); text-align: center; }");
+        html.append(".brand { font-size: 14px; color: #7c3aed; font-weight: 500; margin-bottom: 8px; }");
+        html.append(".brand strong { color: #7c3aed; }");
+        html.append("h1 { font-size: 1.8rem; font-weight: 600; color: #1f2937; margin: 0; }");
+        html.append("h1 i { color: #7c3aed; margin-right: 10px; }");
+        html.append(".content { display: grid; grid-template-columns: 1fr; gap: 20px; }");
+        html.append(".card { background: white; border-radius: 16px; padding: 25px; box-shadow: 0 8px 25px rgba(0,0,0,0.1); transition: transform 0.2s ease; }");
+        html.append(".card:hover { transform: translateY(-2px); }");
+        html.append(".card-title { font-size: 1.2rem; font-weight: 600; color: #1f2937; margin-bottom: 20px; display: flex; align-items: center; gap: 8px; }");
+        html.append(".card-title i { color: #7c3aed; font-size: 1.1rem; }");
+        html.append(".status-grid { display: grid; grid-template-columns: repeat(auto-fit, minmax(180px, 1fr)); gap: 15px; }");
+        html.append(".status-item { background: #f8fafc; padding: 18px; border-radius: 12px; text-align: center; border-left: 4px solid #7c3aed; }");
+        html.append(".status-label { font-size: 0.85rem; color: #64748b; margin-bottom: 6px; }");
+        html.append(".status-value { font-size: 1rem; font-weight: 600; color: #1f2937; }");
+        html.append(".status-value.running { color: #059669; }");
+        html.append(".status-value.stopped { color: #dc2626; }");
+        html.append(".status-value i { margin-right: 6px; }");
+        html.append("table { width: 100%; border-collapse: collapse; background: white; border-radius: 12px; overflow: hidden; }");
+        html.append("th { background: #7c3aed; color: white; padding: 14px; font-weight: 500; font-size: 0.9rem; }");
+        html.append("td { padding: 14px; border-bottom: 1px solid #f1f5f9; font-size: 0.9rem; }");
+        html.append("tr:last-child td { border-bottom: none; }");
+        html.append("tr:hover { background: #f8fafc; }");
+        html.append(".pack-status { padding: 4px 10px; border-radius: 12px; font-size: 0.8rem; font-weight: 500; }");
+        html.append(".pack-loaded { background: #dcfce7; color: #166534; }");
+        html.append(".pack-available { background: #fef3c7; color: #92400e; }");
+        html.append(".download-link { color: #7c3aed; text-decoration: none; font-weight: 500; }");
+        html.append(".download-link:hover { color: #5b21b6; }");
+        html.append(".form-grid { display: grid; grid-template-columns: repeat(auto-fit, minmax(220px, 1fr)); gap: 18px; }");
+        html.append(".form-group { margin-bottom: 15px; }");
+        html.append("label { display: block; margin-bottom: 6px; font-weight: 500; color: #374151; font-size: 0.9rem; }");
+        html.append("input[type='text'], input[type='number'] { width: 100%; padding: 10px 14px; border: 2px solid #e5e7eb; border-radius: 10px; font-size: 0.9rem; transition: border-color 0.2s; }");
+        html.append("input[type='text']:focus, input[type='number']:focus { outline: none; border-color: #7c3aed; }");
+        html.append("input[type='checkbox'] { width: 18px; height: 18px; accent-color: #7c3aed; }");
+        html.append(".checkbox-label { display: flex; align-items: center; gap: 8px; font-size: 0.85rem; color: #6b7280; }");
+        html.append(".button-group { display: flex; gap: 12px; margin-top: 20px; }");
+        html.append(".btn { padding: 10px 20px; border: none; border-radius: 10px; font-size: 0.9rem; font-weight: 500; cursor: pointer; transition: all 0.2s; display: flex; align-items: center; gap: 6px; }");
+        html.append(".btn-primary { background: #7c3aed; color: white; }");
+        html.append(".btn-primary:hover { background: #5b21b6; }");
+        html.append(".btn-secondary { background: #6b7280; color: white; }");
+        html.append(".btn-secondary:hover { background: #4b5563; }");
+        html.append(".alert { padding: 12px 16px; border-radius: 10px; margin: 15px 0; font-size: 0.9rem; display: flex; align-items: center; gap: 8px; }");
+        html.append(".alert-success { background: #d1fae5; color: #065f46; }");
+        html.append(".alert-error { background: #fee2e2; color: #991b1b; }");
+        html.append(".no-packs { text-align: center; padding: 30px; color: #6b7280; }");
+        html.append(".no-packs i { font-size: 2.5rem; color: #d1d5db; margin-bottom: 12px; }");
+        html.append(".footer { text-align: center; margin-top: 30px; color: #6b7280; font-size: 0.85rem; }");
+        html.append("@media (max-width: 768px) { ");
+        html.append("  body { padding: 10px; } ");
+        html.append("  .header { padding: 20px; } ");
+        html.append("  h1 { font-size: 1.5rem; } ");
+        html.append("  .card { padding: 20px; } ");
+        html.append("  .status-grid { grid-template-columns: 1fr 1fr; } ");
+        html.append("  .form-grid { grid-template-columns: 1fr; } ");
+        html.append("  .button-group { flex-direction: column; } ");
+        html.append("  table { font-size: 0.8rem; } ");
+        html.append("  th, td { padding: 10px 8px; } ");
+        html.append("} ");
+        html.append("@media (max-width: 480px) { ");
+        html.append("  .status-grid { grid-template-columns: 1fr; } ");
+        html.append("  .status-item { padding: 15px; } ");
+        html.append("  .header { padding: 15px; } ");
+        html.append("  .card { padding: 15px; } ");
+        html.append("} ");
+        html.append("</style>");
+        html.append("</head>");
+        html.append("<body>");
+        html.append("<div class='container'>");
+        html.append("<div class='header'>");
+        html.append("<div class='brand'><i class='fas fa-cloud'></i> Powered by <strong>CloudNord.net</strong></div>");
+        html.append("<h1><i class='fas fa-cube'></i> Resource Pack Manager</h1>");
+        html.append("</div>");
+        
+        html.append("<div class='content'>");
+        
+        // Server Status Section, values are filled in from /api/status
+        html.append("<div class='card'>");
+        html.append("<div class='card-title'><i class='fas fa-server'></i>Server Status</div>");
+        html.append("<div class='status-grid'>");
+        html.append("<div class='status-item'>");
+        html.append("<div class='status-label'>HTTP Server</div>");
+        html.append("<div class='status-value' id='http_status'>-</div>");
+        html.append("</div>");
+        html.append("<div class='status-item'>");
+        html.append("<div class='status-label'>Port</div>");
+        html.append("<div class='status-value'><i class='fas fa-plug'></i> <span id='port'>-</span></div>");
+        html.append("</div>");
+        html.append("<div class='status-item'>");
+        html.append("<div class='status-label'>Loaded Packs</div>");
+        html.append("<div class='status-value'><i class='fas fa-box'></i> <span id='loaded_packs'>-</span></div>");
+        html.append("</div>");
+        html.append("<div class='status-item'>");
+        html.append("<div class='status-label'>Server IP</div>");
+        html.append("<div class='status-value'><i class='fas fa-globe'></i> <span id='server_ip_value'>-</span></div>");
+        html.append("</div>");
+        html.append("</div>");
+        html.append("</div>");
+        
+        // Available Resource Packs Section, filled in from /api/packs
+        html.append("<div class='card'>");
+        html.append("<div class='card-title'><i class='fas fa-archive'></i>Available Resource Packs</div>");
+        html.append("<div id='packs'></div>");
+        html.append("</div>");
+        
+        // Delivery Latency Section, filled in from /api/status
+        html.append("<div class='card'>");
+        html.append("<div class='card-title'><i class='fas fa-stopwatch'></i>Delivery Latency (p50 / p95 / p99)</div>");
+        html.append("<div id='deliveries'></div>");
+        html.append("</div>");
+        
+        // Configuration Section
+        html.append("<div class='card'>");
+        html.append("<div class='card-title'><i class='fas fa-cogs'></i>Configuration</div>");
+        html.append("<form onsubmit='updateConfig(event)'>");
+        html.append("<div class='form-grid'>");
+        html.append("<div class='form-group'>");
+        html.append("<label for='server_ip'><i class='fas fa-globe'></i> Server IP</label>");
+        html.append("<input type='text' id='server_ip' placeholder='Leave empty for auto-detect'>");
+        html.append("</div>");
+        html.append("<div class='form-group'>");
+        html.append("<label for='http_port'><i class='fas fa-plug'></i> HTTP Port</label>");
+        html.append("<input type='number' id='http_port' min='1' max='65535'>");
+        html.append("</div>");
+        html.append("<div class='form-group'>");
+        html.append("<label><i class='fas fa-exclamation-triangle'></i> Force Pack</label>");
+        html.append("<div class='checkbox-label'>");
+        html.append("<input type='checkbox' id='force_pack'>");
+        html.append("<span>Force players to accept resource packs</span>");
+        html.append("</div>");
+        html.append("</div>");
+        html.append("<div class='form-group'>");
+        html.append("<label><i class='fas fa-magic'></i> Auto Apply</label>");
+        html.append("<div class='checkbox-label'>");
+        html.append("<input type='checkbox' id='auto_apply'>");
+        html.append("<span>Automatically apply packs to all worlds</span>");
+        html.append("</div>");
+        html.append("</div>");
+        html.append("</div>");
+        html.append("<div class='button-group'>");
+        html.append("<button type='submit' class='btn btn-primary'><i class='fas fa-save'></i> Save Configuration</button>");
+        html.append("<button type='button' onclick='reloadPlugin()' class='btn btn-secondary'><i class='fas fa-sync-alt'></i> Reload Plugin</button>");
+        html.append("</div>");
+        html.append("</form>");
+        html.append("</div>");
+        
+        html.append("<div id='status'></div>");
+        html.append("</div>"); // Close content
+        
+        html.append("<div class='footer'>");
+        html.append("<p><i class='fas fa-heart' style='color: #ef4444;'></i> Made with CloudNord.net</p>");
+        html.append("</div>");
+        html.append("<script>");
+        html.append("function esc(s) {");
+        html.append("  return String(s).replace(/[&<>\"']/g, c => ({'&': '&amp;', '<': '&lt;', '>': '&gt;', '\"': '&quot;', \"'\": '&#39;'})[c]);");
+        html.append("}");
+        html.append("function empty(icon, title, text) {");
+        html.append("  return '<div class=\"no-packs\"><i class=\"fas ' + icon + '\"></i><h3>' + title + '</h3><p>' + text + '</p></div>';");
+        html.append("}");
+        html.append("let configLoaded = false;");
+        html.append("function loadStatus() {");
+        html.append("  fetch('/api/status').then(r => r.json()).then(d => {");
+        html.append("    const running = document.getElementById('http_status');");
+        html.append("    running.className = 'status-value ' + (d.server_running ? 'running' : 'stopped');");
+        html.append("    running.innerHTML = d.server_running ? '<i class=\"fas fa-check-circle\"></i> Running' : '<i class=\"fas fa-times-circle\"></i> Stopped';");
+        html.append("    document.getElementById('port').textContent = d.http_port;");
+        html.append("    document.getElementById('loaded_packs').textContent = d.loaded_packs;");
+        html.append("    document.getElementById('server_ip_value').textContent = d.server_ip;");
+        html.append("    if (!configLoaded) {");
+        html.append("      configLoaded = true;");
+        html.append("      document.getElementById('server_ip').value = d.config.server_ip;");
+        html.append("      document.getElementById('http_port').value = d.config.http_port;");
+        html.append("      document.getElementById('force_pack').checked = d.config.force_pack;");
+        html.append("      document.getElementById('auto_apply').checked = d.config.auto_apply;");
+        html.append("    }");
+        html.append("    let rows = '';");
+        html.append("    for (const s of d.deliveries) {");
+        html.append("      rows += '<tr><td><i class=\"fas fa-file-archive\"></i> ' + esc(s.pack) + '</td><td>' + s.deliveries + '</td><td>' + s.loaded + '</td><td>'");
+        html.append("        + esc(s.prompt_to_download) + '</td><td>' + esc(s.download) + '</td><td>' + esc(s.total) + '</td></tr>';");
+        html.append("    }");
+        html.append("    document.getElementById('deliveries').innerHTML = rows ? '<table><tr><th><i class=\"fas fa-cube\"></i> Pack</th><th><i class=\"fas fa-users\"></i> Deliveries</th>'");
+        html.append("      + '<th><i class=\"fas fa-check\"></i> Loaded</th><th><i class=\"fas fa-hourglass-start\"></i> Prompt to Download</th>'");
+        html.append("      + '<th><i class=\"fas fa-download\"></i> Download</th><th><i class=\"fas fa-flag-checkered\"></i> Total</th></tr>' + rows + '</table>'");
+        html.append("      : empty('fa-stopwatch', 'No Deliveries Yet', 'Timings appear once players have received a resource pack.');");
+        html.append("  }).catch(e => {});");
+        html.append("}");
+        html.append("function loadPacks() {");
+        html.append("  fetch('/api/packs').then(r => r.json()).then(d => {");
+        html.append("    let rows = '';");
+        html.append("    for (const p of d.packs) {");
+        html.append("      rows += '<tr><td><i class=\"fas fa-file-archive\"></i> ' + esc(p.name) + '</td><td>' + esc(p.size_text) + '</td><td>'");
+        html.append("        + (p.loaded ? '<span class=\"pack-status pack-loaded\"><i class=\"fas fa-check\"></i> Loaded</span>' : '<span class=\"pack-status pack-available\"><i class=\"fas fa-clock\"></i> Available</span>')");
+        html.append("        + '</td><td><a href=\"/' + encodeURIComponent(p.name) + '\" target=\"_blank\" class=\"download-link\"><i class=\"fas fa-external-link-alt\"></i> Download</a></td></tr>';");
+        html.append("    }");
+        html.append("    document.getElementById('packs').innerHTML = rows ? '<table><tr><th><i class=\"fas fa-cube\"></i> Pack Name</th><th><i class=\"fas fa-weight-hanging\"></i> Size</th>'");
+        html.append("      + '<th><i class=\"fas fa-info-circle\"></i> Status</th><th><i class=\"fas fa-download\"></i> Download</th></tr>' + rows + '</table>'");
+        html.append("      : empty('fa-folder-open', 'No Resource Packs Found', 'Upload .zip files to the pack folder:<br><code>' + esc(d.folder) + '</code>');");
+        html.append("  }).catch(e => {});");
+        html.append("}");
+        html.append("loadStatus();");
+        html.append("loadPacks();");
+        html.append("setInterval(() => { loadStatus(); loadPacks(); }, " + REFRESH_SECONDS * 1000 + ");");
+        html.append("function updateConfig(e) {");
+        html.append("  e.preventDefault();");
+        html.append("  const data = {");
+        html.append("    server_ip: document.getElementById('server_ip').value,");
+        html.append("    http_port: document.getElementById('http_port').value,");
+        html.append("    force_pack: document.getElementById('force_pack').checked,");
+        html.append("    auto_apply: document.getElementById('auto_apply').checked");
+        html.append("  };");
+        html.append("  const saveBtn = document.querySelector('button[type=\"submit\"]');");
+        html.append("  saveBtn.innerHTML = '<i class=\"fas fa-spinner fa-spin\"></i> Saving...';");
+        html.append("  saveBtn.disabled = true;");
+        html.append("  fetch('/api/config', { method: 'POST', headers: {'Content-Type': 'application/json'}, body: JSON.stringify(data) })");
+        html.append("    .then(r => r.json()).then(d => {");
+        html.append("      const icon = d.success ? 'fas fa-check-circle' : 'fas fa-exclamation-circle';");
+        html.append("      document.getElementById('status').innerHTML = '<div class=\"alert alert-' + (d.success ? 'success' : 'error') + '\"><i class=\"' + icon + '\"></i> ' + d.message + '</div>';");
+        html.append("      saveBtn.innerHTML = '<i class=\"fas fa-save\"></i> Save Configuration';");
+        html.append("      saveBtn.disabled = false;");
+        html.append("      if(d.success) setTimeout(() => location.reload(), 2000);");
+        html.append("    }).catch(e => {");
+        html.append("      document.getElementById('status').innerHTML = '<div class=\"alert alert-error\"><i class=\"fas fa-exclamation-circle\"></i> Network error occurred</div>';");
+        html.append("      saveBtn.innerHTML = '<i class=\"fas fa-save\"></i> Save Configuration';");
+        html.append("      saveBtn.disabled = false;");
+        html.append("    });");
+        html.append("}");
+        html.append("function reloadPlugin() {");
+        html.append("  const reloadBtn = document.querySelector('button[onclick=\"reloadPlugin()\"]');");
+        html.append("  reloadBtn.innerHTML = '<i class=\"fas fa-spinner fa-spin\"></i> Reloading...';");
+        html.append("  reloadBtn.disabled = true;");
+        html.append("  fetch('/api/reload', { method: 'POST' })");
+        html.append("    .then(r => r.json()).then(d => {");
+        html.append("      const icon = d.success ? 'fas fa-check-circle' : 'fas fa-exclamation-circle';");
+        html.append("      document.getElementById('status').innerHTML = '<div class=\"alert alert-' + (d.success ? 'success' : 'error') + '\"><i class=\"' + icon + '\"></i> ' + d.message + '</div>';");
+        html.append("      reloadBtn.innerHTML = '<i class=\"fas fa-sync-alt\"></i> Reload Plugin';");
+        html.append("      reloadBtn.disabled = false;");
+        html.append("      if(d.success) setTimeout(() => location.reload(), 2000);");
+        html.append("    }).catch(e => {");
+        html.append("      document.getElementById('status').innerHTML = '<div class=\"alert alert-error\"><i class=\"fas fa-exclamation-circle\"></i> Network error occurred</div>';");
+        html.append("      reloadBtn.innerHTML = '<i class=\"fas fa-sync-alt\"></i> Reload Plugin';");
+        html.append("      reloadBtn.disabled = false;");
+        html.append("    });");
+        html.append("}");
+        html.append("</script>");
+        html.append("</div>");
+        html.append("</body>");
+        html.append("</html>");
+        
+        return html.toString();
+    }
+    
+    private static String etag(byte[] body) {
+        try {
+            return "\"" + PackHasher.toHex(MessageDigest.getInstance("SHA-1").digest(body)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+    
+    // p50/p95/p99 as "a / b / c ms", or "-" without samples
+    static String formatPercentiles(long[] percentiles) {
+        if (percentiles == null) {
+            return "-";
+        }
+        StringBuilder formatted = new StringBuilder();
+        for (int i = 0; i < percentiles.length; i++) {
+            formatted.append(i == 0 ? "" : " / ").append(percentiles[i]);
+        }
+        return formatted.append(" ms").toString();
+    }
+    
+    static String formatFileSize(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return (bytes / 1024) + " KB";
+        return (bytes / (1024 * 1024)) + " MB";
+    }
+}
@@ -0,0 +1,210 @@
+package com.seniorresourcepacks;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Follows every pack send through to the player's final status: when the prompt went out,
+ * when that client started and finished the HTTP download, and how it ended. Settled
+ * deliveries feed a sliding window of samples per pack for percentiles.
+ *
+ * Sends and statuses are recorded on the main thread and downloads on HTTP threads, so
+ * everything here is safe to call from any thread.
+ */
+final class DeliveryTimeline {
+    
+    // Settled deliveries kept per pack for percentiles
+    private static final int SAMPLE_WINDOW = 1024;
+    static final double[] PERCENTILES = {0.50, 0.95, 0.99};
+    
+    static final class Delivery {
+        final UUID playerId;
+        final String playerName;
+        final InetAddress address;
+        final String packName;
+        // All times are from the timeline's millisecond clock, 0 while that step has not happened
+        final long sentAt;
+        volatile long downloadStartedAt;
+        volatile long downloadFinishedAt;
+        volatile long settledAt;
+        volatile String status;
+        
+        Delivery(UUID playerId, String playerName, InetAddress address, String packName, long sentAt) {
+            this.playerId = playerId;
+            this.playerName = playerName;
+            this.address = address;
+            this.packName = packName;
+            this.sentAt = sentAt;
+        }
+    }
+    
+    /**
+     * Percentiles for one pack, each array follows {@link #PERCENTILES} and is null
+     * when there are no samples for that step yet.
+     */
+    static final class PackStats {
+        final String packName;
+        final long deliveries;
+        final long loaded;
+        final long[] promptToDownload;
+        final long[] download;
+        final long[] total;
+        
+        PackStats(String packName, long deliveries, long loaded, long[] promptToDownload, long[] download, long[] total) {
+            this.packName = packName;
+            this.deliveries = deliveries;
+            this.loaded = loaded;
+            this.promptToDownload = promptToDownload;
+            this.download = download;
+            this.total = total;
+        }
+    }
+    
+    private static final class Samples {
+        private final long[] values = new long[SAMPLE_WINDOW];
+        private int count = 0;
+        private int next = 0;
+        
+        synchronized void add(long value) {
+            values[next] = value;
+            next = (next + 1) % values.length;
+            count = Math.min(count + 1, values.length);
+        }
+        
+        synchronized long[] percentiles() {
+            if (count == 0) {
+                return null;
+            }
+            long[] sorted = Arrays.copyOf(values, count);
+            Arrays.sort(sorted);
+            long[] result = new long[PERCENTILES.length];
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                // Nearest-rank percentile
+                int rank = (int) Math.ceil(PERCENTILES[i] * count);
+                result[i] = sorted[Math.max(0, rank - 1)];
+            }
+            return result;
+        }
+    }
+    
+    private static final class PackSamples {
+        final LongAdder deliveries = new LongAdder();
+        final LongAdder loaded = new LongAdder();
+        final Samples promptToDownload = new Samples();
+        final Samples download = new Samples();
+        final Samples total = new Samples();
+    }
+    
+    // Latest delivery of each pack per online player
+    private final Map<UUID, Map<String, Delivery>> deliveries = new ConcurrentHashMap<>();
+    private final Map<String, PackSamples> samples = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+    
+    DeliveryTimeline() {
+        this(System::currentTimeMillis);
+    }
+    
+    // The clock returns milliseconds; tests pass their own to get exact durations
+    DeliveryTimeline(LongSupplier clock) {
+        this.clock = clock;
+    }
+    
+    void recordSent(UUID playerId, String playerName, InetAddress address, String packName) {
+        deliveries.computeIfAbsent(playerId, key -> new ConcurrentHashMap<>())
+                .put(packName, new Delivery(playerId, playerName, address, packName, clock.getAsLong()));
+    }
+    
+    // A resumed download keeps its original start time
+    void recordDownloadStarted(UUID playerId, InetAddress address, String packName) {
+        Delivery delivery = find(playerId, address, packName);
+        if (delivery != null && delivery.downloadStartedAt == 0) {
+            delivery.downloadStartedAt = clock.getAsLong();
+        }
+    }
+    
+    void recordDownloadFinished(UUID playerId, InetAddress address, String packName) {
+        Delivery delivery = find(playerId, address, packName);
+        if (delivery != null && delivery.downloadFinishedAt == 0) {
+            delivery.downloadFinishedAt = clock.getAsLong();
+        }
+    }
+    
+    void recordStatus(UUID playerId, String packName, String status, boolean settled, boolean loaded) {
+        Map<String, Delivery> playerDeliveries = deliveries.get(playerId);
+        Delivery delivery = playerDeliveries != null ? playerDeliveries.get(packName) : null;
+        if (delivery == null) {
+            return;
+        }
+        delivery.status = status;
+        if (!settled || delivery.settledAt != 0) {
+            return;
+        }
+        delivery.settledAt = clock.getAsLong();
+        
+        PackSamples packSamples = samples.computeIfAbsent(packName, key -> new PackSamples());
+        packSamples.deliveries.increment();
+        if (loaded) {
+            packSamples.loaded.increment();
+        }
+        // Clients that already had the pack cached never hit the HTTP server
+        if (delivery.downloadStartedAt != 0) {
+            packSamples.promptToDownload.add(delivery.downloadStartedAt - delivery.sentAt);
+            if (delivery.downloadFinishedAt != 0) {
+                packSamples.download.add(delivery.downloadFinishedAt - delivery.downloadStartedAt);
+            }
+        }
+        packSamples.total.add(delivery.settledAt - delivery.sentAt);
+    }
+    
+    Collection<Delivery> getDeliveries(UUID playerId) {
+        Map<String, Delivery> playerDeliveries = deliveries.get(playerId);
+        return playerDeliveries != null ? playerDeliveries.values() : Collections.emptyList();
+    }
+    
+    List<PackStats> getStats() {
+        List<PackStats> stats = new ArrayList<>();
+        for (Map.Entry<String, PackSamples> entry : new TreeMap<>(samples).entrySet()) {
+            PackSamples packSamples = entry.getValue();
+            stats.add(new PackStats(entry.getKey(), packSamples.deliveries.sum(), packSamples.loaded.sum(),
+                    packSamples.promptToDownload.percentiles(), packSamples.download.percentiles(), packSamples.total.percentiles()));
+        }
+        return stats;
+    }
+    
+    void forget(UUID playerId) {
+        deliveries.remove(playerId);
+    }
+    
+    /**
+     * Matches an HTTP download to a delivery. Vanilla clients send their UUID with the
+     * request; anything else is matched by address to the oldest unfinished delivery.
+     */
+    private Delivery find(UUID playerId, InetAddress address, String packName) {
+        if (playerId != null) {
+            Map<String, Delivery> playerDeliveries = deliveries.get(playerId);
+            if (playerDeliveries != null && playerDeliveries.containsKey(packName)) {
+                return playerDeliveries.get(packName);
+            }
+        }
+        Delivery match = null;
+        for (Map<String, Delivery> playerDeliveries : deliveries.values()) {
+            Delivery delivery = playerDeliveries.get(packName);
+            if (delivery != null && delivery.settledAt == 0 && delivery.downloadFinishedAt == 0
+                    && delivery.address != null && delivery.address.equals(address)
+                    && (match == null || delivery.sentAt < match.sentAt)) {
+                match = delivery;
+            }
+        }
+        return match;
+    }
+}
@@ -0,0 +1,149 @@
+package com.seniorresourcepacks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content-Encoding negotiation for text responses. Packs are zips and never pass through
+ * here; anything that is not text, JSON or script is sent as is.
+ */
+final class HttpCompression {
+    
+    static final String GZIP = "gzip";
+    static final String DEFLATE = "deflate";
+    
+    // Below this the encoding overhead eats most of the savings
+    static final int MIN_COMPRESSIBLE_SIZE = 256;
+    
+    /**
+     * A body together with its compressed forms, for responses that are built once and
+     * served many times. Compressed forms that would not be smaller are left out.
+     */
+    static final class Encoded {
+        final byte[] identity;
+        final byte[] gzip;
+        final byte[] deflate;
+        
+        private Encoded(byte[] identity, byte[] gzip, byte[] deflate) {
+            this.identity = identity;
+            this.gzip = gzip;
+            this.deflate = deflate;
+        }
+        
+        static Encoded of(byte[] body) {
+            if (body.length < MIN_COMPRESSIBLE_SIZE) {
+                return new Encoded(body, null, null);
+            }
+            // Paid once, so the strongest level is worth it
+            byte[] gzip = compress(body, GZIP, Deflater.BEST_COMPRESSION);
+            byte[] deflate = compress(body, DEFLATE, Deflater.BEST_COMPRESSION);
+            return new Encoded(body, gzip.length < body.length ? gzip : null, deflate.length < body.length ? deflate : null);
+        }
+        
+        // The body for a negotiated encoding, or null if that encoding is not available
+        byte[] get(String encoding) {
+            if (GZIP.equals(encoding)) {
+                return gzip;
+            }
+            if (DEFLATE.equals(encoding)) {
+                return deflate;
+            }
+            return null;
+        }
+    }
+    
+    private HttpCompression() {
+    }
+    
+    static boolean isCompressible(String contentType) {
+        String type = contentType.toLowerCase(Locale.ROOT);
+        int parameters = type.indexOf(';');
+        if (parameters >= 0) {
+            type = type.substring(0, parameters).trim();
+        }
+        if (type.equals("application/zip")) {
+            return false; // Already compressed
+        }
+        return type.startsWith("text/") || type.equals("application/json") || type.equals("application/javascript")
+                || type.endsWith("+json") || type.endsWith("+xml") || type.equals("application/xml");
+    }
+    
+    /**
+     * Picks gzip or deflate from an Accept-Encoding header by quality value, preferring gzip
+     * on a tie. Returns null when neither is acceptable.
+     */
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double wildcard = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] fields = part.split(";");
+            String coding = fields[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < fields.length; i++) {
+                String field = fields[i].trim();
+                // Parameter names are case-insensitive
+                if (field.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        quality = Double.parseDouble(field.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equals(GZIP) || coding.equals("x-gzip")) {
+                gzip = Math.max(gzip, quality);
+            } else if (coding.equals(DEFLATE)) {
+                deflate = Math.max(deflate, quality);
+            } else if (coding.equals("*")) {
+                wildcard = quality;
+            }
+        }
+        // Codings not named explicitly take the wildcard's quality
+        if (gzip < 0) {
+            gzip = wildcard;
+        }
+        if (deflate < 0) {
+            deflate = wildcard;
+        }
+        if (gzip <= 0 && deflate <= 0) {
+            return null;
+        }
+        return gzip >= deflate ? GZIP : DEFLATE;
+    }
+    
+    // "deflate" in HTTP means the zlib format, which is what a default Deflater writes
+    static byte[] compress(byte[] body, String encoding, int level) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try {
+            if (GZIP.equals(encoding)) {
+                try (GZIPOutputStream out = new GZIPOutputStream(buffer) {
+                    {
+                        def.setLevel(level);
+                    }
+                }) {
+                    out.write(body);
+                }
+            } else {
+                Deflater deflater = new Deflater(level);
+                try (DeflaterOutputStream out = new DeflaterOutputStream(buffer, deflater)) {
+                    out.write(body);
+                } finally {
+                    deflater.end();
+                }
+            }
+        } catch (IOException e) {
+            // Only ever writing to memory
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,166 @@
+package com.seniorresourcepacks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One parsed HTTP/1.x request: request line, headers and a Content-Length body.
+ */
+final class HttpRequest {
+    
+    static final int MAX_LINE_LENGTH = 8 * 1024;
+    static final int MAX_HEADER_COUNT = 100;
+    static final int MAX_BODY_LENGTH = 64 * 1024;
+    
+    /**
+     * Thrown for requests that cannot be answered on this connection. The status is
+     * sent back before the connection is closed.
+     */
+    static final class BadRequestException extends IOException {
+        private static final long serialVersionUID = 1L;
+        
+        final int status;
+        
+        BadRequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+    
+    final String method;
+    final String path;
+    final String version;
+    final Map<String, String> headers;
+    final byte[] body;
+    
+    private HttpRequest(String method, String path, String version, Map<String, String> headers, byte[] body) {
+        this.method = method;
+        this.path = path;
+        this.version = version;
+        this.headers = headers;
+        this.body = body;
+    }
+    
+    String header(String name) {
+        return headers.get(name);
+    }
+    
+    String bodyAsString() {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * HTTP/1.1 connections persist unless the client says otherwise,
+     * HTTP/1.0 ones only when the client asks for it.
+     */
+    boolean wantsKeepAlive() {
+        String connection = headers.get("connection");
+        if (connection != null) {
+            String value = connection.toLowerCase();
+            if (value.contains("close")) {
+                return false;
+            }
+            if (value.contains("keep-alive")) {
+                return true;
+            }
+        }
+        return "HTTP/1.1".equals(version);
+    }
+    
+    /**
+     * Reads the next request from the stream. Returns null if the client closed the
+     * connection cleanly before sending anything.
+     */
+    static HttpRequest read(InputStream in) throws IOException {
+        String requestLine = readLine(in);
+        // Tolerate stray blank lines between pipelined requests
+        while (requestLine != null && requestLine.isEmpty()) {
+            requestLine = readLine(in);
+        }
+        if (requestLine == null) {
+            return null;
+        }
+        
+        String[] tokens = requestLine.split(" ");
+        if (tokens.length < 2) {
+            throw new BadRequestException(400, "Malformed request line");
+        }
+        String method = tokens[0];
+        String path = tokens[1];
+        String version = tokens.length > 2 ? tokens[2] : "HTTP/1.0";
+        
+        // Read headers, keyed by lower-case name
+        Map<String, String> headers = new HashMap<>();
+        String headerLine;
+        while (true) {
+            headerLine = readLine(in);
+            if (headerLine == null) {
+                throw new EOFException("Connection closed inside request headers");
+            }
+            if (headerLine.isEmpty()) {
+                break;
+            }
+            if (headers.size() >= MAX_HEADER_COUNT) {
+                throw new BadRequestException(431, "Request Header Fields Too Large");
+            }
+            int colon = headerLine.indexOf(':');
+            if (colon > 0) {
+                headers.put(headerLine.substring(0, colon).trim().toLowerCase(), headerLine.substring(colon + 1).trim());
+            }
+        }
+        
+        if (headers.containsKey("transfer-encoding")) {
+            throw new BadRequestException(411, "Length Required");
+        }
+        
+        byte[] body = new byte[0];
+        String contentLengthHeader = headers.get("content-length");
+        if (contentLengthHeader != null) {
+            int contentLength;
+            try {
+                contentLength = Integer.parseInt(contentLengthHeader.trim());
+            } catch (NumberFormatException e) {
+                throw new BadRequestException(400, "Invalid Content-Length");
+            }
+            if (contentLength < 0) {
+                throw new BadRequestException(400, "Invalid Content-Length");
+            }
+            if (contentLength > MAX_BODY_LENGTH) {
+                throw new BadRequestException(413, "Payload Too Large");
+            }
+            body = in.readNBytes(contentLength);
+            if (body.length < contentLength) {
+                throw new EOFException("Connection closed inside request body");
+            }
+        }
+        
+        return new HttpRequest(method, path, version, Collections.unmodifiableMap(headers), body);
+    }
+    
+    // Reads a CRLF (or bare LF) terminated ISO-8859-1 line, null at end of stream
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                break;
+            }
+            if (b != '\r') {
+                if (line.size() >= MAX_LINE_LENGTH) {
+                    throw new BadRequestException(431, "Request Header Fields Too Large");
+                }
+                line.write(b);
+            }
+        }
+        if (b == -1 && line.size() == 0) {
+            return null;
+        }
+        return line.toString(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,253 @@
+package com.seniorresourcepacks;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Writes one response on a (possibly persistent) connection. Every response carries
+ * either a Content-Length or no body at all, so the connection can be reused afterwards.
+ */
+final class HttpResponse {
+    
+    // Unthrottled files still go out in slices, so a slow but steady client shows progress
+    static final int TRANSFER_SLICE = 256 * 1024;
+    
+    private final Socket socket;
+    private final OutputStream out;
+    private final BandwidthLimiter.Throttle throttle;
+    private final PackHttpServer.WriteDeadline writes;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private boolean keepAlive;
+    private boolean committed = false;
+    private int status = 0;
+    private long bodyBytes = 0;
+    private long headWrittenAt = 0;
+    // Negotiated Content-Encoding for compressible bodies, null to send them as is
+    private String encoding;
+    
+    HttpResponse(Socket socket, OutputStream out, boolean keepAlive) {
+        this(socket, out, keepAlive, null, null);
+    }
+    
+    HttpResponse(Socket socket, OutputStream out, boolean keepAlive, BandwidthLimiter.Throttle throttle,
+                 PackHttpServer.WriteDeadline writes) {
+        this.socket = socket;
+        this.out = out;
+        this.keepAlive = keepAlive;
+        this.throttle = throttle;
+        this.writes = writes;
+    }
+    
+    HttpResponse header(String name, Object value) {
+        headers.put(name, String.valueOf(value));
+        return this;
+    }
+    
+    InetAddress getRemoteAddress() {
+        return socket.getInetAddress();
+    }
+    
+    void negotiateEncoding(String acceptEncoding) {
+        encoding = HttpCompression.negotiate(acceptEncoding);
+    }
+    
+    // The encoding a pre-compressed body would go out with, or null for identity
+    String encodingFor(HttpCompression.Encoded body) {
+        return body.get(encoding) != null ? encoding : null;
+    }
+    
+    void setKeepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+    
+    boolean isKeepAlive() {
+        return keepAlive;
+    }
+    
+    boolean isCommitted() {
+        return committed;
+    }
+    
+    int getStatus() {
+        return status;
+    }
+    
+    long getBodyBytes() {
+        return bodyBytes;
+    }
+    
+    // System.nanoTime() when the status line went out, 0 if nothing was sent yet
+    long getHeadWrittenAt() {
+        return headWrittenAt;
+    }
+    
+    // Text bodies are compressed on the fly when the client accepts it and it actually saves bytes
+    void send(int status, String contentType, byte[] body) throws IOException {
+        if (HttpCompression.isCompressible(contentType)) {
+            header("Vary", "Accept-Encoding");
+            if (encoding != null && body.length >= HttpCompression.MIN_COMPRESSIBLE_SIZE) {
+                byte[] compressed = HttpCompression.compress(body, encoding, Deflater.DEFAULT_COMPRESSION);
+                if (compressed.length < body.length) {
+                    header("Content-Encoding", encoding);
+                    body = compressed;
+                }
+            }
+        }
+        writeBody(status, contentType, body);
+    }
+    
+    // For bodies that were compressed once up front, such as the dashboard page
+    void send(int status, String contentType, HttpCompression.Encoded body) throws IOException {
+        header("Vary", "Accept-Encoding");
+        String selected = encodingFor(body);
+        if (selected != null) {
+            header("Content-Encoding", selected);
+            writeBody(status, contentType, body.get(selected));
+        } else {
+            writeBody(status, contentType, body.identity);
+        }
+    }
+    
+    private void writeBody(int status, String contentType, byte[] body) throws IOException {
+        header("Content-Type", contentType);
+        header("Content-Length", body.length);
+        try {
+            writeHead(status);
+            out.write(body);
+            out.flush();
+        } finally {
+            endWrite();
+        }
+        bodyBytes = body.length;
+    }
+    
+    void sendText(int status, String message) throws IOException {
+        send(status, "text/plain; charset=UTF-8", message.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    // For 304 and similar responses that never carry a body
+    void sendWithoutBody(int status) throws IOException {
+        try {
+            writeHead(status);
+            out.flush();
+        } finally {
+            endWrite();
+        }
+    }
+    
+    /**
+     * Sends the head and then count bytes of the file starting at position. Sockets accepted
+     * through a ServerSocketChannel let the kernel copy the file (sendfile), anything else
+     * falls back to a small fixed-size transfer buffer inside the JDK. The body goes out in
+     * slices, with bandwidth shaping active as the throttle grants them. Returns the bytes sent.
+     */
+    long sendFile(int status, String contentType, FileChannel file, long position, long count) throws IOException {
+        header("Content-Type", contentType);
+        header("Content-Length", count);
+        try {
+            writeHead(status);
+            out.flush();
+            return transfer(file, position, count);
+        } finally {
+            endWrite();
+        }
+    }
+    
+    private long transfer(FileChannel file, long position, long count) throws IOException {
+        WritableByteChannel target = socket.getChannel();
+        if (target == null) {
+            target = Channels.newChannel(out);
+        }
+        
+        long sent = 0;
+        try {
+            while (sent < count) {
+                long slice = Math.min(count - sent, TRANSFER_SLICE);
+                boolean throttled = throttle != null && !throttle.isUnlimited();
+                if (throttled) {
+                    slice = throttle.acquire(slice);
+                }
+                if (writes != null) {
+                    // Only time spent blocked on the client counts, not waiting for the throttle
+                    writes.progress();
+                }
+                long transferred = file.transferTo(position + sent, slice, target);
+                if (throttled && transferred < slice) {
+                    throttle.release(slice - Math.max(0, transferred));
+                }
+                if (throttle != null) {
+                    throttle.recordSent(transferred);
+                }
+                if (transferred <= 0) {
+                    // File shrank underneath us, the client cannot get what Content-Length promised
+                    keepAlive = false;
+                    break;
+                }
+                sent += transferred;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            keepAlive = false;
+            throw new InterruptedIOException("Interrupted while throttling pack download");
+        } finally {
+            bodyBytes = sent;
+        }
+        out.flush();
+        return sent;
+    }
+    
+    private void writeHead(int status) throws IOException {
+        if (committed) {
+            throw new IllegalStateException("Response already sent");
+        }
+        committed = true;
+        this.status = status;
+        headWrittenAt = System.nanoTime();
+        if (writes != null) {
+            writes.begin();
+        }
+        
+        StringBuilder head = new StringBuilder(256);
+        head.append("HTTP/1.1 ").append(status).append(' ').append(reasonPhrase(status)).append("\r\n");
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            head.append(entry.getKey()).append(": ").append(entry.getValue()).append("\r\n");
+        }
+        head.append("Connection: ").append(keepAlive ? "keep-alive" : "close").append("\r\n");
+        head.append("\r\n");
+        out.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+    }
+    
+    private void endWrite() {
+        if (writes != null) {
+            writes.end();
+        }
+    }
+    
+    static String reasonPhrase(int status) {
+        switch (status) {
+            case 200: return "OK";
+            case 206: return "Partial Content";
+            case 304: return "Not Modified";
+            case 400: return "Bad Request";
+            case 404: return "Not Found";
+            case 405: return "Method Not Allowed";
+            case 411: return "Length Required";
+            case 413: return "Payload Too Large";
+            case 416: return "Range Not Satisfiable";
+            case 431: return "Request Header Fields Too Large";
+            case 500: return "Internal Server Error";
+            case 503: return "Service Unavailable";
+            default: return "Unknown";
+        }
+    }
+}
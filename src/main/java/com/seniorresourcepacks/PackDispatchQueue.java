@@ -0,0 +1,156 @@
+package com.seniorresourcepacks;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission control for pack prompts. Players wait in a fair queue (priority first,
+ * then longest waiting) and are released a few per cycle while fewer than the
+ * configured number of downloads are in flight. A slot frees up when the player's
+ * pack reaches a final status, when they quit, or when the in-flight timeout expires.
+ *
+ * Not thread-safe: every method is meant to be called from the main server thread,
+ * except the published* getters which may be read from anywhere.
+ */
+final class PackDispatchQueue {
+    
+    private static final class Entry {
+        final UUID playerId;
+        final int priority;
+        final long sequence;
+        final long enqueuedAt;
+        
+        Entry(UUID playerId, int priority, long sequence, long enqueuedAt) {
+            this.playerId = playerId;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+    
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>(
+            Comparator.comparingInt((Entry e) -> -e.priority).thenComparingLong(e -> e.sequence));
+    private final Map<UUID, Entry> queuedPlayers = new HashMap<>();
+    private final Map<UUID, Long> inFlight = new HashMap<>();
+    private final Consumer<UUID> dispatcher;
+    private final LongSupplier clock;
+    
+    private int maxInFlight = 20;
+    private int dispatchesPerCycle = 2;
+    private long inFlightTimeoutMillis = 120_000;
+    private long nextSequence = 0;
+    
+    private long dispatchedCount = 0;
+    private long totalWaitMillis = 0;
+    
+    // Copies of the sizes as of the last tick, for readers off the main thread
+    private volatile int publishedQueueDepth = 0;
+    private volatile int publishedInFlight = 0;
+    
+    PackDispatchQueue(Consumer<UUID> dispatcher) {
+        this(dispatcher, System::currentTimeMillis);
+    }
+    
+    // The clock returns milliseconds; tests pass their own to step through timeouts
+    PackDispatchQueue(Consumer<UUID> dispatcher, LongSupplier clock) {
+        this.dispatcher = dispatcher;
+        this.clock = clock;
+    }
+    
+    void configure(int maxInFlight, int dispatchesPerCycle, long inFlightTimeoutMillis) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.dispatchesPerCycle = Math.max(1, dispatchesPerCycle);
+        this.inFlightTimeoutMillis = Math.max(1000, inFlightTimeoutMillis);
+    }
+    
+    /**
+     * Queues a player for a pack prompt. A player already waiting keeps their place,
+     * only upgrading their priority if the new one is higher.
+     */
+    void enqueue(UUID playerId, int priority) {
+        Entry existing = queuedPlayers.get(playerId);
+        if (existing != null) {
+            if (existing.priority >= priority) {
+                return;
+            }
+            queue.remove(existing);
+        }
+        Entry entry = new Entry(playerId, priority,
+                existing != null ? existing.sequence : nextSequence++,
+                existing != null ? existing.enqueuedAt : clock.getAsLong());
+        queue.add(entry);
+        queuedPlayers.put(playerId, entry);
+    }
+    
+    // The player's download finished one way or another
+    void release(UUID playerId) {
+        inFlight.remove(playerId);
+    }
+    
+    // The player left, forget them entirely
+    void remove(UUID playerId) {
+        Entry entry = queuedPlayers.remove(playerId);
+        if (entry != null) {
+            queue.remove(entry);
+        }
+        inFlight.remove(playerId);
+    }
+    
+    boolean isInFlight(UUID playerId) {
+        return inFlight.containsKey(playerId);
+    }
+    
+    /**
+     * Runs one dispatch cycle: expires stuck downloads, then releases up to
+     * dispatchesPerCycle players while in-flight slots are free.
+     */
+    void tick() {
+        long now = clock.getAsLong();
+        inFlight.values().removeIf(startedAt -> now - startedAt > inFlightTimeoutMillis);
+        
+        int dispatched = 0;
+        while (dispatched < dispatchesPerCycle && inFlight.size() < maxInFlight && !queue.isEmpty()) {
+            Entry entry = queue.poll();
+            queuedPlayers.remove(entry.playerId);
+            
+            inFlight.put(entry.playerId, now);
+            dispatchedCount++;
+            totalWaitMillis += now - entry.enqueuedAt;
+            dispatched++;
+            
+            dispatcher.accept(entry.playerId);
+        }
+        
+        publishedQueueDepth = queue.size();
+        publishedInFlight = inFlight.size();
+    }
+    
+    int getQueueDepth() {
+        return queue.size();
+    }
+    
+    int getInFlightCount() {
+        return inFlight.size();
+    }
+    
+    int getMaxInFlight() {
+        return maxInFlight;
+    }
+    
+    int getPublishedQueueDepth() {
+        return publishedQueueDepth;
+    }
+    
+    int getPublishedInFlight() {
+        return publishedInFlight;
+    }
+    
+    long getDispatchedCount() {
+        return dispatchedCount;
+    }
+    
+    long getAverageWaitMillis() {
+        return dispatchedCount == 0 ? 0 : totalWaitMillis / dispatchedCount;
+    }
+}
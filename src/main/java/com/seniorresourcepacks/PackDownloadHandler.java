@@ -0,0 +1,200 @@
+package com.seniorresourcepacks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves pack downloads: plain and content-addressed URLs, conditional requests and
+ * byte ranges. Everything that is not the dashboard or the API ends up here.
+ */
+final class PackDownloadHandler {
+    
+    static final String CONTENT_ADDRESSED_PREFIX = "/packs/";
+    private static final DateTimeFormatter HTTP_DATE_FORMAT =
+            DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+    
+    private final Logger logger;
+    private final Supplier<PackRegistry> registry;
+    private final File packsFolder;
+    private final PackMetrics metrics;
+    private final DeliveryTimeline deliveryTimeline;
+    
+    PackDownloadHandler(Logger logger, Supplier<PackRegistry> registry, File packsFolder, PackMetrics metrics, DeliveryTimeline deliveryTimeline) {
+        this.logger = logger;
+        this.registry = registry;
+        this.packsFolder = packsFolder;
+        this.metrics = metrics;
+        this.deliveryTimeline = deliveryTimeline;
+    }
+    
+    void handle(HttpRequest request, HttpResponse response) throws IOException {
+        String fileRequested = request.path;
+        
+        // Extract filename from path
+        String filename = fileRequested.substring(fileRequested.lastIndexOf("/") + 1);
+        
+        ResourcePackInfo loadedPack = registry.get().getPack(filename);
+        
+        // Content-addressed URLs (/packs/<sha1>/<file>) only resolve while that exact hash is loaded
+        boolean immutable = false;
+        if (fileRequested.startsWith(CONTENT_ADDRESSED_PREFIX)) {
+            String requestedHash = fileRequested.substring(CONTENT_ADDRESSED_PREFIX.length(), Math.max(CONTENT_ADDRESSED_PREFIX.length(), fileRequested.lastIndexOf("/")));
+            if (loadedPack == null || !requestedHash.equalsIgnoreCase(PackHasher.toHex(loadedPack.hash))) {
+                logger.warning("Stale or unknown pack hash requested: " + fileRequested);
+                response.sendText(404, "File not found: " + filename);
+                return;
+            }
+            immutable = true;
+        }
+        
+        File packFile = loadedPack != null ? loadedPack.file : new File(packsFolder, filename);
+        if (packFile.exists() && packFile.isFile() && filename.endsWith(".zip")) {
+            try {
+                servePackFile(filename, packFile, loadedPack, immutable, request, response);
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "Error serving file: " + filename, e);
+                if (response.isCommitted()) {
+                    // Headers are already out, the only honest signal left is closing the connection
+                    response.setKeepAlive(false);
+                } else {
+                    response.sendText(500, "Internal Server Error");
+                }
+            }
+        } else {
+            logger.warning("Resource pack not found: " + filename);
+            response.sendText(404, "File not found: " + filename);
+        }
+    }
+    
+    private void servePackFile(String filename, File packFile, ResourcePackInfo loadedPack, boolean immutable,
+                               HttpRequest request, HttpResponse response) throws IOException {
+        String etag = loadedPack != null ? "\"" + PackHasher.toHex(loadedPack.hash) + "\"" : null;
+        long lastModified = packFile.lastModified();
+        
+        if (etag != null) {
+            response.header("ETag", etag);
+        }
+        response.header("Last-Modified", HTTP_DATE_FORMAT.format(Instant.ofEpochMilli(lastModified)));
+        response.header("Cache-Control", immutable ? "public, max-age=31536000, immutable" : "no-cache");
+        response.header("Access-Control-Allow-Origin", "*");
+        
+        // Answer conditional requests before the file is even opened
+        if (isNotModified(request.headers, etag, lastModified)) {
+            response.sendWithoutBody(304);
+            return;
+        }
+        
+        try (FileChannel fileChannel = FileChannel.open(packFile.toPath(), StandardOpenOption.READ)) {
+            long fileLength = fileChannel.size();
+            response.header("Accept-Ranges", "bytes");
+            
+            // Resume support: honour a single byte range unless If-Range says the pack changed
+            ByteRange range = ByteRange.parse(request.header("range"), fileLength);
+            String ifRange = request.header("if-range");
+            if (range != null && ifRange != null && (etag == null || !etag.equals(ifRange))) {
+                range = null;
+            }
+            
+            if (range == ByteRange.UNSATISFIABLE) {
+                response.header("Content-Range", "bytes */" + fileLength);
+                response.sendText(416, "Requested Range Not Satisfiable");
+                return;
+            }
+            
+            if (range != null) {
+                response.header("Content-Range", "bytes " + range.start + "-" + range.end + "/" + fileLength);
+            }
+            response.header("Content-Disposition", "attachment; filename=\"" + filename + "\"");
+            
+            // Correlate the download with the player's pack prompt for the delivery timeline
+            UUID downloaderId = loadedPack != null ? parseMinecraftUuid(request.header("x-minecraft-uuid")) : null;
+            if (loadedPack != null) {
+                deliveryTimeline.recordDownloadStarted(downloaderId, response.getRemoteAddress(), filename);
+            }
+            
+            // Stream the body straight from the file so packs never land on the heap
+            long sent;
+            try {
+                sent = range != null
+                        ? response.sendFile(206, "application/zip", fileChannel, range.start, range.length())
+                        : response.sendFile(200, "application/zip", fileChannel, 0, fileLength);
+            } finally {
+                // Counted even when the client drops mid-download, those bytes still left the server
+                metrics.recordPackBytes(filename, response.getBodyBytes());
+            }
+            
+            // Finished once the last byte of the pack went out, whether in one go or after resumes
+            long expected = range != null ? range.length() : fileLength;
+            if (loadedPack != null && sent == expected && (range == null || range.end == fileLength - 1)) {
+                deliveryTimeline.recordDownloadFinished(downloaderId, response.getRemoteAddress(), filename);
+            }
+        }
+    }
+    
+    // Vanilla clients identify themselves with X-Minecraft-UUID, with or without dashes
+    private static UUID parseMinecraftUuid(String header) {
+        if (header == null) {
+            return null;
+        }
+        String value = header.trim();
+        if (value.length() == 32) {
+            value = value.substring(0, 8) + "-" + value.substring(8, 12) + "-" + value.substring(12, 16)
+                    + "-" + value.substring(16, 20) + "-" + value.substring(20);
+        }
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    // True if If-None-Match names this ETag (weak comparison), also used for the dashboard documents
+    static boolean matchesEtag(Map<String, String> headers, String etag) {
+        String ifNoneMatch = headers.get("if-none-match");
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private boolean isNotModified(Map<String, String> headers, String etag, long lastModified) {
+        // If-None-Match takes precedence over If-Modified-Since when both are sent
+        if (headers.containsKey("if-none-match")) {
+            return matchesEtag(headers, etag);
+        }
+        
+        String ifModifiedSince = headers.get("if-modified-since");
+        if (ifModifiedSince != null) {
+            try {
+                long since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+                // HTTP dates have second precision
+                return lastModified / 1000 <= since / 1000;
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,141 @@
+package com.seniorresourcepacks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cached listing of the .zip files in the pack folder, so page hits do not list and stat
+ * the folder every time.
+ *
+ * A WatchService marks the listing stale whenever something in the folder changes. If the
+ * folder cannot be watched, the folder's own modification time is compared on each call
+ * instead, which catches added, removed and renamed packs but not in-place rewrites.
+ */
+final class PackFolderListing {
+    
+    static final class Entry {
+        final String name;
+        final long size;
+        final long lastModified;
+        
+        Entry(String name, long size, long lastModified) {
+            this.name = name;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+    
+    // Immutable once published, version goes up with every rebuild
+    static final class Snapshot {
+        final long version;
+        final List<Entry> entries;
+        
+        Snapshot(long version, List<Entry> entries) {
+            this.version = version;
+            this.entries = entries;
+        }
+    }
+    
+    private final File folder;
+    private final Logger logger;
+    private volatile Snapshot snapshot;
+    private volatile boolean stale = true;
+    private volatile long folderModified = -1;
+    private volatile WatchService watchService;
+    
+    PackFolderListing(File folder, Logger logger) {
+        this.folder = folder;
+        this.logger = logger;
+    }
+    
+    void startWatching() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            folder.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.log(Level.WARNING, "Could not watch the pack folder, falling back to modification time checks", e);
+            watchService = null;
+            return;
+        }
+        
+        WatchService service = watchService;
+        Thread watcher = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = service.take();
+                    // Events are only a signal, the listing is rebuilt lazily on the next read
+                    key.pollEvents();
+                    stale = true;
+                    if (!key.reset()) {
+                        // Folder is gone, keep checking its modification time from now on
+                        watchService = null;
+                        return;
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // Shutting down
+            }
+        }, "SeniorResourcePacks-FolderWatcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+    
+    void close() {
+        WatchService service = watchService;
+        watchService = null;
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException e) {
+                logger.log(Level.FINE, "Error closing pack folder watcher", e);
+            }
+        }
+    }
+    
+    void invalidate() {
+        stale = true;
+    }
+    
+    Snapshot get() {
+        Snapshot current = snapshot;
+        if (current != null && !stale && (watchService != null || folder.lastModified() == folderModified)) {
+            return current;
+        }
+        return rebuild();
+    }
+    
+    private synchronized Snapshot rebuild() {
+        Snapshot current = snapshot;
+        // Another thread may have rebuilt while this one waited
+        if (current != null && !stale && (watchService != null || folder.lastModified() == folderModified)) {
+            return current;
+        }
+        // Cleared before listing so a change during the listing marks it stale again
+        stale = false;
+        folderModified = folder.lastModified();
+        
+        File[] files = folder.listFiles((dir, name) -> name.toLowerCase().endsWith(".zip"));
+        List<Entry> entries = new ArrayList<>();
+        if (files != null) {
+            Arrays.sort(files, Comparator.comparing(File::getName));
+            for (File file : files) {
+                entries.add(new Entry(file.getName(), file.length(), file.lastModified()));
+            }
+        }
+        Snapshot rebuilt = new Snapshot(current != null ? current.version + 1 : 1, List.copyOf(entries));
+        snapshot = rebuilt;
+        return rebuilt;
+    }
+}
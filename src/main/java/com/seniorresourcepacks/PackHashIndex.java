@@ -0,0 +1,208 @@
+package com.seniorresourcepacks;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk cache of pack SHA-1 hashes keyed by path, size and last-modified time.
+ *
+ * The file is a short header followed by append-only records, each protected by a CRC32.
+ * A later record for the same path supersedes an earlier one. Truncated or corrupt tails
+ * are dropped on load and the file is rewritten compacted on the next update; entries for
+ * packs that no longer exist are dropped whenever it is rewritten.
+ */
+final class PackHashIndex {
+    
+    private static final int MAGIC = 0x53525049; // "SRPI"
+    private static final int VERSION = 1;
+    private static final int HASH_LENGTH = 20;
+    private static final int MAX_RECORD_LENGTH = 64 * 1024;
+    
+    private static final class Entry {
+        final long size;
+        final long lastModified;
+        final byte[] hash;
+        
+        Entry(long size, long lastModified, byte[] hash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+    
+    private final File indexFile;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private int recordCount = 0;
+    private boolean needsRewrite = false;
+    
+    PackHashIndex(File indexFile) {
+        this.indexFile = indexFile;
+    }
+    
+    /**
+     * Loads the index from disk. Returns false if the file existed but was corrupt,
+     * in which case every readable entry is kept and the rest will be rebuilt.
+     */
+    synchronized boolean load() throws IOException {
+        entries.clear();
+        recordCount = 0;
+        needsRewrite = false;
+        if (!indexFile.isFile()) {
+            needsRewrite = true;
+            return true;
+        }
+        
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                needsRewrite = true;
+                return false;
+            }
+            
+            CRC32 crc = new CRC32();
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break; // Clean end of file
+                }
+                if (length <= 0 || length > MAX_RECORD_LENGTH) {
+                    needsRewrite = true;
+                    return false;
+                }
+                
+                byte[] body = new byte[length];
+                in.readFully(body);
+                int storedCrc = in.readInt();
+                crc.reset();
+                crc.update(body, 0, length);
+                if ((int) crc.getValue() != storedCrc) {
+                    needsRewrite = true;
+                    return false;
+                }
+                
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(body));
+                String path = record.readUTF();
+                long size = record.readLong();
+                long lastModified = record.readLong();
+                byte[] hash = new byte[HASH_LENGTH];
+                record.readFully(hash);
+                entries.put(path, new Entry(size, lastModified, hash));
+                recordCount++;
+            }
+        } catch (EOFException e) {
+            // Record cut short, most likely a crash mid-append
+            needsRewrite = true;
+            return false;
+        }
+        
+        // Compact once superseded records dominate the file
+        if (recordCount > entries.size() * 2 + 16) {
+            needsRewrite = true;
+        }
+        return true;
+    }
+    
+    /**
+     * Returns the cached hash if the file still has the size and modification time
+     * it had when it was hashed, otherwise null.
+     */
+    synchronized byte[] lookup(File file) {
+        Entry entry = entries.get(keyFor(file));
+        if (entry == null || entry.size != file.length() || entry.lastModified != file.lastModified()) {
+            return null;
+        }
+        return entry.hash.clone();
+    }
+    
+    /**
+     * Records a hash together with the size and modification time the file had before it
+     * was hashed, so a file rewritten during hashing never matches the stale hash.
+     */
+    synchronized void put(File file, long size, long lastModified, byte[] hash) throws IOException {
+        if (hash.length != HASH_LENGTH) {
+            throw new IllegalArgumentException("Expected a SHA-1 hash, got " + hash.length + " bytes");
+        }
+        String key = keyFor(file);
+        Entry entry = new Entry(size, lastModified, hash.clone());
+        Entry previous = entries.put(key, entry);
+        if (previous != null && previous.size == entry.size && previous.lastModified == entry.lastModified
+                && Arrays.equals(previous.hash, entry.hash)) {
+            return;
+        }
+        
+        if (needsRewrite) {
+            rewrite();
+        } else {
+            append(key, entry);
+        }
+    }
+    
+    // Drops entries for packs that were deleted, compacting the file if anything changed
+    synchronized void prune() throws IOException {
+        if (entries.keySet().removeIf(key -> !new File(key).isFile())) {
+            needsRewrite = true;
+        }
+        if (needsRewrite) {
+            rewrite();
+        }
+    }
+    
+    private void append(String key, Entry entry) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile, true)))) {
+            writeRecord(out, key, entry);
+        }
+        recordCount++;
+    }
+    
+    private void rewrite() throws IOException {
+        File parent = indexFile.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        
+        entries.keySet().removeIf(key -> !new File(key).isFile());
+        File tempFile = new File(indexFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                writeRecord(out, e.getKey(), e.getValue());
+            }
+        }
+        
+        if (!tempFile.renameTo(indexFile)) {
+            // Windows will not rename over an existing file
+            indexFile.delete();
+            if (!tempFile.renameTo(indexFile)) {
+                throw new IOException("Could not replace hash index " + indexFile);
+            }
+        }
+        recordCount = entries.size();
+        needsRewrite = false;
+    }
+    
+    private static void writeRecord(DataOutputStream out, String key, Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + key.length());
+        DataOutputStream record = new DataOutputStream(bytes);
+        record.writeUTF(key);
+        record.writeLong(entry.size);
+        record.writeLong(entry.lastModified);
+        record.write(entry.hash);
+        record.flush();
+        
+        byte[] body = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length);
+        out.writeInt(body.length);
+        out.write(body);
+        out.writeInt((int) crc.getValue());
+    }
+    
+    private static String keyFor(File file) {
+        return file.getAbsolutePath();
+    }
+}
@@ -0,0 +1,326 @@
+package com.seniorresourcepacks;
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The embedded HTTP engine: accepts connections, runs each one on its own thread and
+ * hands every parsed request to a {@link RequestHandler}.
+ *
+ * Connections run on virtual threads when the JVM supports them (Java 21+) and on a
+ * pool of platform threads otherwise. Either way at most maxConnections are served at
+ * once; further clients wait in the accept backlog instead of being refused. Reads time
+ * out through the socket, writes through a watchdog that closes connections whose client
+ * stopped reading, so a stalled client cannot hold a connection slot forever.
+ */
+final class PackHttpServer {
+    
+    interface RequestHandler {
+        void handle(HttpRequest request, HttpResponse response) throws IOException;
+    }
+    
+    /**
+     * Write progress of one connection. Responses mark when a write starts, moves on and
+     * ends; the watchdog closes the socket once a write has not moved for too long.
+     */
+    static final class WriteDeadline {
+        // System.nanoTime() of the last progress while a write is under way, 0 while not writing
+        private volatile long lastProgress = 0;
+        
+        void begin() {
+            lastProgress = System.nanoTime();
+        }
+        
+        void progress() {
+            if (lastProgress != 0) {
+                lastProgress = System.nanoTime();
+            }
+        }
+        
+        void end() {
+            lastProgress = 0;
+        }
+        
+        boolean isStalled(long now, long timeoutNanos) {
+            long since = lastProgress;
+            return since != 0 && now - since > timeoutNanos;
+        }
+    }
+    
+    static final class Settings {
+        int backlog = 256;
+        int maxConnections = 512;
+        int keepAliveTimeoutMillis = 5000;
+        int maxRequestsPerConnection = 100;
+        // A response write that makes no progress for this long is abandoned, 0 to wait forever
+        int writeTimeoutMillis = 30_000;
+        // "auto", "virtual" or "platform"
+        String threadMode = "auto";
+        // Shapes pack bodies, null for no shaping at all
+        BandwidthLimiter bandwidthLimiter;
+        // Receives per-request timings and status codes, null to skip instrumentation
+        PackMetrics metrics;
+        // One entry per request, null to not keep an access log
+        AccessLog accessLog;
+    }
+    
+    private final Logger logger;
+    private final RequestHandler handler;
+    private final Settings settings;
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final Map<Socket, WriteDeadline> writeDeadlines = new ConcurrentHashMap<>();
+    
+    private ServerSocketChannel serverChannel;
+    private ExecutorService connectionExecutor;
+    private ScheduledExecutorService watchdog;
+    private Semaphore connectionPermits;
+    private boolean virtualThreads;
+    private volatile boolean running = false;
+    
+    PackHttpServer(Logger logger, RequestHandler handler, Settings settings) {
+        this.logger = logger;
+        this.handler = handler;
+        this.settings = settings;
+    }
+    
+    void start(InetSocketAddress bindAddress) throws IOException {
+        // Opened through a channel so accepted sockets can use FileChannel.transferTo
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(bindAddress, Math.max(1, settings.backlog));
+        
+        connectionPermits = new Semaphore(Math.max(1, settings.maxConnections));
+        connectionExecutor = createConnectionExecutor();
+        running = true;
+        
+        if (settings.writeTimeoutMillis > 0) {
+            watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "SeniorResourcePacks-HTTP-Watchdog");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = Math.max(100, Math.min(1000, settings.writeTimeoutMillis / 2));
+            watchdog.scheduleWithFixedDelay(this::closeStalledWriters, period, period, TimeUnit.MILLISECONDS);
+        }
+        
+        Thread acceptThread = new Thread(this::acceptLoop, "SeniorResourcePacks-HTTP-Accept");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+    
+    void stop() throws IOException {
+        running = false;
+        try {
+            if (serverChannel != null) {
+                serverChannel.close();
+            }
+        } finally {
+            if (watchdog != null) {
+                watchdog.shutdownNow();
+            }
+            if (connectionExecutor != null) {
+                connectionExecutor.shutdownNow();
+            }
+        }
+    }
+    
+    boolean isRunning() {
+        return running;
+    }
+    
+    int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+    
+    int getActiveConnections() {
+        return activeConnections.get();
+    }
+    
+    int getMaxConnections() {
+        return settings.maxConnections;
+    }
+    
+    boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+    
+    private void acceptLoop() {
+        while (running) {
+            SocketChannel clientChannel = null;
+            try {
+                // Block here rather than accept, so overflow waits in the kernel backlog
+                connectionPermits.acquire();
+                clientChannel = serverChannel.accept();
+                Socket clientSocket = clientChannel.socket();
+                activeConnections.incrementAndGet();
+                connectionExecutor.execute(() -> {
+                    try {
+                        handleConnection(clientSocket);
+                    } catch (RuntimeException e) {
+                        logger.log(Level.SEVERE, "Unexpected error on HTTP connection", e);
+                    } finally {
+                        activeConnections.decrementAndGet();
+                        connectionPermits.release();
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RejectedExecutionException e) {
+                connectionPermits.release();
+                if (clientChannel != null) {
+                    activeConnections.decrementAndGet();
+                    closeQuietly(clientChannel.socket());
+                }
+                if (running) {
+                    logger.log(Level.WARNING, "Error accepting HTTP connection", e);
+                }
+            }
+        }
+    }
+    
+    private void handleConnection(Socket clientSocket) {
+        WriteDeadline writes = new WriteDeadline();
+        writeDeadlines.put(clientSocket, writes);
+        try (InputStream in = new BufferedInputStream(clientSocket.getInputStream());
+             OutputStream out = new BufferedOutputStream(clientSocket.getOutputStream())) {
+            
+            // Persistent connection: keep serving requests until the client closes,
+            // goes idle or reaches the per-connection request cap
+            clientSocket.setSoTimeout(settings.keepAliveTimeoutMillis);
+            // Responses are written whole through a buffer, so Nagle only delays the last segment
+            // of each one until the client's delayed ACK (~40 ms per keep-alive request)
+            clientSocket.setTcpNoDelay(true);
+            BandwidthLimiter.Throttle throttle = settings.bandwidthLimiter != null ? settings.bandwidthLimiter.newThrottle() : null;
+            int handled = 0;
+            while (running) {
+                HttpRequest request;
+                try {
+                    request = HttpRequest.read(in);
+                } catch (HttpRequest.BadRequestException e) {
+                    new HttpResponse(clientSocket, out, false, null, writes).sendText(e.status, e.getMessage());
+                    if (settings.metrics != null) {
+                        settings.metrics.recordRejected(e.status);
+                    }
+                    if (settings.accessLog != null) {
+                        settings.accessLog.record(clientSocket.getInetAddress().getHostAddress(), "-", "-", e.status, 0, 0);
+                    }
+                    return;
+                } catch (SocketTimeoutException | EOFException e) {
+                    return; // Idle or half-sent request, just hang up
+                }
+                if (request == null) {
+                    return;
+                }
+                
+                handled++;
+                boolean keepAlive = request.wantsKeepAlive() && handled < settings.maxRequestsPerConnection;
+                HttpResponse response = new HttpResponse(clientSocket, out, keepAlive, throttle, writes);
+                response.negotiateEncoding(request.header("accept-encoding"));
+                long start = System.nanoTime();
+                try {
+                    handler.handle(request, response);
+                } catch (RuntimeException e) {
+                    // A handler bug must not take the connection thread down silently
+                    logger.log(Level.SEVERE, "Unexpected error handling " + request.method + " " + request.path, e);
+                    response.setKeepAlive(false);
+                    if (!response.isCommitted()) {
+                        response.sendText(500, "Internal Server Error");
+                    }
+                } finally {
+                    long duration = System.nanoTime() - start;
+                    if (settings.metrics != null) {
+                        // A response that never got a head (client vanished mid-handler) counts as status 0
+                        settings.metrics.recordRequest(response.getStatus(), duration,
+                                response.isCommitted() ? response.getHeadWrittenAt() - start : -1);
+                    }
+                    if (settings.accessLog != null) {
+                        settings.accessLog.record(clientSocket.getInetAddress().getHostAddress(), request.method, request.path,
+                                response.getStatus(), response.getBodyBytes(), duration);
+                    }
+                }
+                
+                if (!response.isKeepAlive()) {
+                    return;
+                }
+            }
+            
+        } catch (IOException e) {
+            if (running) {
+                logger.log(Level.WARNING, "Error handling HTTP request", e);
+            }
+        } finally {
+            writeDeadlines.remove(clientSocket);
+            closeQuietly(clientSocket);
+        }
+    }
+    
+    // Shutting the output down wakes a thread blocked in sendfile, which a plain close does
+    // not; its write then fails and the connection ends the normal way
+    private void closeStalledWriters() {
+        long now = System.nanoTime();
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(settings.writeTimeoutMillis);
+        for (Map.Entry<Socket, WriteDeadline> entry : writeDeadlines.entrySet()) {
+            if (entry.getValue().isStalled(now, timeoutNanos)) {
+                Socket socket = entry.getKey();
+                logger.warning("Closing HTTP connection from " + socket.getInetAddress().getHostAddress()
+                        + ": the client stopped reading for " + settings.writeTimeoutMillis + " ms");
+                writeDeadlines.remove(socket);
+                try {
+                    socket.shutdownOutput();
+                } catch (IOException e) {
+                    // Closed anyway below
+                }
+                closeQuietly(socket);
+            }
+        }
+    }
+    
+    private ExecutorService createConnectionExecutor() {
+        virtualThreads = false;
+        if (!"platform".equalsIgnoreCase(settings.threadMode)) {
+            // Looked up reflectively: the plugin targets Java 19, where virtual threads are still a preview
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                ExecutorService executor = (ExecutorService) factory.invoke(null);
+                virtualThreads = true;
+                return executor;
+            } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+                if ("virtual".equalsIgnoreCase(settings.threadMode)) {
+                    logger.warning("Virtual threads are not available on this JVM, using platform threads for HTTP connections");
+                }
+            }
+        }
+        
+        // Threads are created on demand up to the connection limit and retired when idle
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "SeniorResourcePacks-HTTP-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.seniorresourcepacks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Combines several packs into one zip for clients that only take a single pack.
+ *
+ * Later packs override files of earlier ones, except pack.mcmeta and lang/atlas JSON which
+ * are merged. Entries are streamed one at a time, and the result is cached on disk under a
+ * key derived from the input hashes, so it is only rebuilt when an input changes.
+ */
+final class PackMerger {
+    
+    // Bump when the merge rules change so old cached output is not reused
+    private static final String FORMAT_VERSION = "2";
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    
+    private final File cacheFolder;
+    private final Logger logger;
+    
+    PackMerger(File cacheFolder, Logger logger) {
+        this.cacheFolder = cacheFolder;
+        this.logger = logger;
+    }
+    
+    // Returns the merged zip for these packs (in stacking order), building it only on a cache miss
+    synchronized File merge(List<ResourcePackInfo> inputs) throws IOException {
+        String key = cacheKey(inputs);
+        File merged = new File(cacheFolder, "merged-" + key + ".zip");
+        if (merged.isFile()) {
+            return merged;
+        }
+        
+        if (!cacheFolder.isDirectory() && !cacheFolder.mkdirs()) {
+            throw new IOException("Could not create merge cache folder " + cacheFolder);
+        }
+        long start = System.nanoTime();
+        File tmp = new File(cacheFolder, "merged-" + key + ".zip.tmp");
+        try {
+            write(inputs, tmp);
+            Files.move(tmp.toPath(), merged.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            tmp.delete();
+        }
+        logger.info("Merged " + inputs.size() + " resource packs into " + merged.getName() + " (" + merged.length() + " bytes) in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+        
+        // Only the current combination is worth keeping
+        File[] stale = cacheFolder.listFiles((dir, name) -> name.startsWith("merged-") && !name.equals(merged.getName()));
+        if (stale != null) {
+            for (File file : stale) {
+                file.delete();
+            }
+        }
+        return merged;
+    }
+    
+    private void write(List<ResourcePackInfo> inputs, File target) throws IOException {
+        List<ZipFile> zips = new ArrayList<>();
+        try {
+            for (ResourcePackInfo input : inputs) {
+                zips.add(new ZipFile(input.file));
+            }
+            
+            // Entry name -> index of the last pack that has it, in order of first appearance
+            Map<String, Integer> owners = new LinkedHashMap<>();
+            for (int i = 0; i < zips.size(); i++) {
+                Enumeration<? extends ZipEntry> entries = zips.get(i).entries();
+                while (entries.hasMoreElements()) {
+                    owners.put(entries.nextElement().getName(), i);
+                }
+            }
+            
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            try (ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(target), COPY_BUFFER_SIZE))) {
+                for (Map.Entry<String, Integer> owner : owners.entrySet()) {
+                    String name = owner.getKey();
+                    out.putNextEntry(new ZipEntry(name));
+                    if (isMergeable(name)) {
+                        out.write(mergeJsonEntry(name, zips, owner.getValue()));
+                    } else if (!name.endsWith("/")) {
+                        ZipFile source = zips.get(owner.getValue());
+                        try (InputStream in = source.getInputStream(source.getEntry(name))) {
+                            int read;
+                            while ((read = in.read(buffer)) != -1) {
+                                out.write(buffer, 0, read);
+                            }
+                        }
+                    }
+                    out.closeEntry();
+                }
+            }
+        } finally {
+            for (ZipFile zip : zips) {
+                zip.close();
+            }
+        }
+    }
+    
+    private byte[] mergeJsonEntry(String name, List<ZipFile> zips, int lastOwner) throws IOException {
+        JsonElement merged = null;
+        for (int i = 0; i <= lastOwner; i++) {
+            ZipEntry entry = zips.get(i).getEntry(name);
+            if (entry == null) {
+                continue;
+            }
+            try (Reader reader = new InputStreamReader(zips.get(i).getInputStream(entry), StandardCharsets.UTF_8)) {
+                JsonElement element = JsonParser.parseReader(reader);
+                merged = merged == null ? element : mergeJson(merged, element);
+            } catch (JsonParseException e) {
+                // Only the broken file is left out, what the other packs define still merges
+                logger.log(Level.WARNING, "Could not parse " + name + " in " + zips.get(i).getName() + ", skipping it in the merge", e);
+            }
+        }
+        if (merged == null) {
+            // Not one of them parsed, so plain override like any other entry
+            try (InputStream in = zips.get(lastOwner).getInputStream(zips.get(lastOwner).getEntry(name))) {
+                return in.readAllBytes();
+            }
+        }
+        return merged.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    // pack.mcmeta plus language and atlas definitions, everything else is last-wins
+    static boolean isMergeable(String name) {
+        if (name.equals("pack.mcmeta")) {
+            return true;
+        }
+        if (!name.startsWith("assets/") || !name.endsWith(".json")) {
+            return false;
+        }
+        String[] parts = name.split("/");
+        return parts.length == 4 && (parts[2].equals("lang") || parts[2].equals("atlases"));
+    }
+    
+    // Objects merge key by key, arrays concatenate without duplicates, anything else is replaced
+    static JsonElement mergeJson(JsonElement base, JsonElement overlay) {
+        if (base.isJsonObject() && overlay.isJsonObject()) {
+            JsonObject result = base.getAsJsonObject().deepCopy();
+            for (Map.Entry<String, JsonElement> entry : overlay.getAsJsonObject().entrySet()) {
+                JsonElement existing = result.get(entry.getKey());
+                result.add(entry.getKey(), existing == null ? entry.getValue() : mergeJson(existing, entry.getValue()));
+            }
+            return result;
+        }
+        if (base.isJsonArray() && overlay.isJsonArray()) {
+            JsonArray result = base.getAsJsonArray().deepCopy();
+            for (JsonElement element : overlay.getAsJsonArray()) {
+                if (!result.contains(element)) {
+                    result.add(element);
+                }
+            }
+            return result;
+        }
+        return overlay;
+    }
+    
+    static String cacheKey(List<ResourcePackInfo> inputs) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+        md.update(FORMAT_VERSION.getBytes(StandardCharsets.UTF_8));
+        for (ResourcePackInfo input : inputs) {
+            md.update(input.hash);
+        }
+        return PackHasher.toHex(md.digest());
+    }
+}
@@ -0,0 +1,125 @@
+package com.seniorresourcepacks;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and histograms for the pack server, rendered in the Prometheus text format.
+ *
+ * Recording only ever touches LongAdders, so the connection threads never contend on a lock.
+ * Rendering sums the adders and may be slightly behind concurrent updates, which is fine for scraping.
+ */
+final class PackMetrics {
+    
+    static final String PREFIX = "seniorresourcepacks_";
+    
+    // Seconds, chosen to cover both small API calls and multi-minute pack downloads
+    private static final double[] LATENCY_BUCKETS = {
+            0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120, 300
+    };
+    
+    static final class Histogram {
+        private final double[] bounds;
+        private final LongAdder[] buckets;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+        
+        Histogram(double[] bounds) {
+            this.bounds = bounds;
+            this.buckets = new LongAdder[bounds.length + 1];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+        
+        void observeNanos(long nanos) {
+            double seconds = nanos / 1e9;
+            int bucket = 0;
+            while (bucket < bounds.length && seconds > bounds[bucket]) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+            count.increment();
+            sumNanos.add(nanos);
+        }
+        
+        void render(StringBuilder out, String name, String help) {
+            out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            out.append("# TYPE ").append(name).append(" histogram\n");
+            // Buckets are stored individually and only made cumulative here
+            long cumulative = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                cumulative += buckets[i].sum();
+                out.append(name).append("_bucket{le=\"").append(bounds[i]).append("\"} ").append(cumulative).append('\n');
+            }
+            cumulative += buckets[bounds.length].sum();
+            out.append(name).append("_bucket{le=\"+Inf\"} ").append(cumulative).append('\n');
+            out.append(name).append("_sum ").append(sumNanos.sum() / 1e9).append('\n');
+            out.append(name).append("_count ").append(count.sum()).append('\n');
+        }
+    }
+    
+    private final ConcurrentHashMap<Integer, LongAdder> responsesByStatus = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> bytesByPack = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> packStatusEvents = new ConcurrentHashMap<>();
+    private final Histogram requestDuration = new Histogram(LATENCY_BUCKETS);
+    private final Histogram timeToFirstByte = new Histogram(LATENCY_BUCKETS);
+    
+    // Both times are measured from the moment the request was fully read; firstByteNanos < 0 if nothing was sent
+    void recordRequest(int status, long durationNanos, long firstByteNanos) {
+        responsesByStatus.computeIfAbsent(status, key -> new LongAdder()).increment();
+        requestDuration.observeNanos(durationNanos);
+        if (firstByteNanos >= 0) {
+            timeToFirstByte.observeNanos(firstByteNanos);
+        }
+    }
+    
+    // Malformed requests never reach a handler, so only their status is counted
+    void recordRejected(int status) {
+        responsesByStatus.computeIfAbsent(status, key -> new LongAdder()).increment();
+    }
+    
+    void recordPackBytes(String packName, long bytes) {
+        if (bytes > 0) {
+            bytesByPack.computeIfAbsent(packName, key -> new LongAdder()).add(bytes);
+        }
+    }
+    
+    void recordPackStatus(String status) {
+        packStatusEvents.computeIfAbsent(status, key -> new LongAdder()).increment();
+    }
+    
+    /**
+     * Renders every metric plus the given point-in-time gauges (name without prefix -> value).
+     */
+    String render(Map<String, Number> gauges) {
+        StringBuilder out = new StringBuilder(4096);
+        
+        for (Map.Entry<String, Number> gauge : gauges.entrySet()) {
+            out.append("# TYPE ").append(PREFIX).append(gauge.getKey()).append(" gauge\n");
+            out.append(PREFIX).append(gauge.getKey()).append(' ').append(gauge.getValue()).append('\n');
+        }
+        
+        renderCounter(out, "http_responses_total", "HTTP responses sent, by status code", "code", new TreeMap<>(responsesByStatus));
+        renderCounter(out, "pack_bytes_sent_total", "Pack body bytes sent, by pack", "pack", new TreeMap<>(bytesByPack));
+        renderCounter(out, "pack_status_events_total", "Resource pack status events reported by clients", "status", new TreeMap<>(packStatusEvents));
+        requestDuration.render(out, PREFIX + "http_request_duration_seconds", "Time from a parsed request to the end of its response");
+        timeToFirstByte.render(out, PREFIX + "http_time_to_first_byte_seconds", "Time from a parsed request to the response head being written");
+        return out.toString();
+    }
+    
+    private static void renderCounter(StringBuilder out, String name, String help, String label, Map<?, LongAdder> values) {
+        out.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(PREFIX).append(name).append(" counter\n");
+        for (Map.Entry<?, LongAdder> entry : values.entrySet()) {
+            out.append(PREFIX).append(name).append('{').append(label).append("=\"")
+                    .append(escapeLabel(String.valueOf(entry.getKey()))).append("\"} ").append(entry.getValue().sum()).append('\n');
+        }
+    }
+    
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,265 @@
+package com.seniorresourcepacks;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Rewrites a pack into a smaller one that is served in its place: every entry deflated at
+ * the highest level, JSON and mcmeta minified, editor junk dropped and PNGs re-encoded when
+ * that is smaller and decodes to the same pixels.
+ *
+ * Output is cached per pack under a key made from the source hash and these settings.
+ */
+final class PackOptimizer {
+    
+    // Bump when the optimisation rules change so old cached output is not reused
+    private static final String FORMAT_VERSION = "2";
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    
+    private final File cacheFolder;
+    private final Logger logger;
+    private final boolean minifyJson;
+    private final boolean recompressPng;
+    private final List<String> stripPatterns;
+    private final List<Pattern> stripNamePatterns = new ArrayList<>();
+    private final List<Pattern> stripPathPatterns = new ArrayList<>();
+    
+    PackOptimizer(File cacheFolder, Logger logger, boolean minifyJson, boolean recompressPng, List<String> stripPatterns) {
+        this.cacheFolder = cacheFolder;
+        this.logger = logger;
+        this.minifyJson = minifyJson;
+        this.recompressPng = recompressPng;
+        this.stripPatterns = List.copyOf(stripPatterns);
+        for (String pattern : this.stripPatterns) {
+            // Patterns with a slash match the whole entry path, others just the file name
+            if (pattern.contains("/")) {
+                stripPathPatterns.add(globToRegex(pattern));
+            } else {
+                stripNamePatterns.add(globToRegex(pattern));
+            }
+        }
+    }
+    
+    // Returns the optimised copy of the pack, building it only when the source or settings changed
+    File optimize(String packName, File source, byte[] sourceHash) throws IOException {
+        String folderName = packName.endsWith(".zip") ? packName.substring(0, packName.length() - ".zip".length()) : packName;
+        File packFolder = new File(cacheFolder, folderName);
+        String key = cacheKey(sourceHash);
+        File optimized = new File(packFolder, key + ".zip");
+        if (optimized.isFile()) {
+            return optimized;
+        }
+        
+        if (!packFolder.isDirectory() && !packFolder.mkdirs()) {
+            throw new IOException("Could not create optimizer cache folder " + packFolder);
+        }
+        long start = System.nanoTime();
+        File tmp = new File(packFolder, key + ".zip.tmp");
+        int stripped;
+        try {
+            stripped = write(source, tmp);
+            Files.move(tmp.toPath(), optimized.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            tmp.delete();
+        }
+        logger.info("Optimized " + packName + ": " + source.length() + " -> " + optimized.length() + " bytes, "
+                + stripped + " junk file(s) removed, in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        
+        // Older versions of this pack are not needed any more
+        File[] stale = packFolder.listFiles((dir, name) -> !name.equals(optimized.getName()));
+        if (stale != null) {
+            for (File file : stale) {
+                file.delete();
+            }
+        }
+        return optimized;
+    }
+    
+    private int write(File source, File target) throws IOException {
+        int stripped = 0;
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        try (ZipFile zip = new ZipFile(source);
+             ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(target), COPY_BUFFER_SIZE))) {
+            out.setLevel(Deflater.BEST_COMPRESSION);
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (isJunk(name)) {
+                    stripped++;
+                    continue;
+                }
+                
+                out.putNextEntry(new ZipEntry(name));
+                if (entry.isDirectory()) {
+                    out.closeEntry();
+                    continue;
+                }
+                if (minifyJson && (name.endsWith(".json") || name.endsWith(".mcmeta"))) {
+                    out.write(minifyJson(readEntry(zip, entry)));
+                } else if (recompressPng && name.endsWith(".png")) {
+                    out.write(recompressPng(readEntry(zip, entry)));
+                } else {
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        int read;
+                        while ((read = in.read(buffer)) != -1) {
+                            out.write(buffer, 0, read);
+                        }
+                    }
+                }
+                out.closeEntry();
+            }
+        }
+        return stripped;
+    }
+    
+    private static byte[] readEntry(ZipFile zip, ZipEntry entry) throws IOException {
+        try (InputStream in = zip.getInputStream(entry)) {
+            return in.readAllBytes();
+        }
+    }
+    
+    boolean isJunk(String entryName) {
+        String name = entryName.endsWith("/") ? entryName.substring(0, entryName.length() - 1) : entryName;
+        String fileName = name.substring(name.lastIndexOf('/') + 1);
+        for (Pattern pattern : stripNamePatterns) {
+            if (pattern.matcher(fileName).matches()) {
+                return true;
+            }
+        }
+        for (Pattern pattern : stripPathPatterns) {
+            if (pattern.matcher(entryName).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    static byte[] minifyJson(byte[] data) {
+        try {
+            byte[] minified = JsonParser.parseString(new String(data, StandardCharsets.UTF_8)).toString().getBytes(StandardCharsets.UTF_8);
+            return minified.length < data.length ? minified : data;
+        } catch (JsonParseException e) {
+            // The client is more lenient than a failed minify, ship it untouched
+            return data;
+        }
+    }
+    
+    // Only takes the re-encoded image if it is smaller and decodes to exactly the same pixels
+    static byte[] recompressPng(byte[] data) {
+        try {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+            if (image == null) {
+                return data;
+            }
+            byte[] encoded = encodePng(image);
+            if (encoded == null || encoded.length >= data.length) {
+                return data;
+            }
+            BufferedImage check = ImageIO.read(new ByteArrayInputStream(encoded));
+            if (check == null || !samePixels(image, check)) {
+                return data;
+            }
+            return encoded;
+        } catch (IOException | RuntimeException e) {
+            return data;
+        }
+    }
+    
+    private static byte[] encodePng(BufferedImage image) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("png");
+        if (!writers.hasNext()) {
+            return null;
+        }
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOut = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(imageOut);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                // Quality 0 selects the strongest deflate level in the JDK writer
+                param.setCompressionQuality(0.0f);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+    
+    // Compares the raw samples rather than getRGB, which squeezes 16-bit channels into 8 bits
+    static boolean samePixels(BufferedImage a, BufferedImage b) {
+        if (a.getWidth() != b.getWidth() || a.getHeight() != b.getHeight() || !a.getColorModel().equals(b.getColorModel())) {
+            return false;
+        }
+        Raster rasterA = a.getRaster();
+        Raster rasterB = b.getRaster();
+        if (rasterA.getNumBands() != rasterB.getNumBands()
+                || !Arrays.equals(rasterA.getSampleModel().getSampleSize(), rasterB.getSampleModel().getSampleSize())) {
+            return false;
+        }
+        int[] rowA = null;
+        int[] rowB = null;
+        for (int y = 0; y < a.getHeight(); y++) {
+            rowA = rasterA.getPixels(rasterA.getMinX(), rasterA.getMinY() + y, a.getWidth(), 1, rowA);
+            rowB = rasterB.getPixels(rasterB.getMinX(), rasterB.getMinY() + y, b.getWidth(), 1, rowB);
+            if (!Arrays.equals(rowA, rowB)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private String cacheKey(byte[] sourceHash) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+        md.update(sourceHash);
+        md.update((FORMAT_VERSION + ":" + minifyJson + ":" + recompressPng + ":" + String.join("\n", stripPatterns))
+                .getBytes(StandardCharsets.UTF_8));
+        return PackHasher.toHex(md.digest());
+    }
+    
+    private static Pattern globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE);
+    }
+}
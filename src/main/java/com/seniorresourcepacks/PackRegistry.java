@@ -0,0 +1,166 @@
+package com.seniorresourcepacks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of the loaded packs, which of them apply to which world, and the
+ * config flags that go with them. Worlds without a profile get the default packs, or the
+ * merged copy of them for clients that only take a single pack.
+ * A reload builds a new registry and swaps it in; readers grab the current one once
+ * and never see a half-built pack list.
+ */
+final class PackRegistry {
+    
+    static final PackRegistry EMPTY = new PackRegistry(Collections.emptyList(), Collections.emptyMap(), false, true);
+    
+    private final List<ResourcePackInfo> packs;
+    private final List<ResourcePackInfo> defaultPacks;
+    private final Map<String, List<ResourcePackInfo>> worldPacks;
+    private final ResourcePackInfo mergedPack;
+    private final Map<String, ResourcePackInfo> packsByFilename;
+    private final Map<UUID, ResourcePackInfo> packsById;
+    private final boolean forcePack;
+    private final boolean autoApplyAllWorlds;
+    
+    PackRegistry(List<ResourcePackInfo> defaultPacks, Map<String, List<ResourcePackInfo>> worldPacks,
+                 boolean forcePack, boolean autoApplyAllWorlds) {
+        this(defaultPacks, worldPacks, null, forcePack, autoApplyAllWorlds);
+    }
+    
+    // mergedPack is null unless merging is on and there is more than one default pack
+    PackRegistry(List<ResourcePackInfo> defaultPacks, Map<String, List<ResourcePackInfo>> worldPacks, ResourcePackInfo mergedPack,
+                 boolean forcePack, boolean autoApplyAllWorlds) {
+        this.defaultPacks = List.copyOf(defaultPacks);
+        this.mergedPack = mergedPack;
+        Map<String, List<ResourcePackInfo>> byWorld = new LinkedHashMap<>();
+        for (Map.Entry<String, List<ResourcePackInfo>> entry : worldPacks.entrySet()) {
+            byWorld.put(entry.getKey(), List.copyOf(entry.getValue()));
+        }
+        this.worldPacks = Collections.unmodifiableMap(byWorld);
+        
+        // Every distinct pack, defaults first, for lookups and listings
+        Map<String, ResourcePackInfo> distinct = new LinkedHashMap<>();
+        for (ResourcePackInfo pack : this.defaultPacks) {
+            distinct.putIfAbsent(pack.filename, pack);
+        }
+        for (List<ResourcePackInfo> packsForWorld : this.worldPacks.values()) {
+            for (ResourcePackInfo pack : packsForWorld) {
+                distinct.putIfAbsent(pack.filename, pack);
+            }
+        }
+        if (mergedPack != null) {
+            distinct.putIfAbsent(mergedPack.filename, mergedPack);
+        }
+        this.packs = List.copyOf(new ArrayList<>(distinct.values()));
+        
+        Map<String, ResourcePackInfo> byFilename = new HashMap<>();
+        Map<UUID, ResourcePackInfo> byId = new HashMap<>();
+        for (ResourcePackInfo pack : this.packs) {
+            // The first slot wins if the same file is configured twice
+            byFilename.putIfAbsent(pack.filename, pack);
+            byId.putIfAbsent(pack.id, pack);
+        }
+        this.packsByFilename = Collections.unmodifiableMap(byFilename);
+        this.packsById = Collections.unmodifiableMap(byId);
+        this.forcePack = forcePack;
+        this.autoApplyAllWorlds = autoApplyAllWorlds;
+    }
+    
+    // Every loaded pack, whichever world it belongs to
+    List<ResourcePackInfo> getPacks() {
+        return packs;
+    }
+    
+    // The packs a player in the given world should have, in stacking order
+    List<ResourcePackInfo> getPacksFor(String worldName) {
+        List<ResourcePackInfo> profilePacks = worldPacks.get(worldName);
+        return profilePacks != null ? profilePacks : defaultPacks;
+    }
+    
+    // Same, with the merged pack in place of the default packs for single-pack clients
+    List<ResourcePackInfo> getPacksFor(String worldName, boolean singlePackClient) {
+        if (singlePackClient && mergedPack != null && !worldPacks.containsKey(worldName)) {
+            return List.of(mergedPack);
+        }
+        return getPacksFor(worldName);
+    }
+    
+    List<ResourcePackInfo> getDefaultPacks() {
+        return defaultPacks;
+    }
+    
+    ResourcePackInfo getMergedPack() {
+        return mergedPack;
+    }
+    
+    Map<String, List<ResourcePackInfo>> getWorldPacks() {
+        return worldPacks;
+    }
+    
+    boolean hasWorldProfiles() {
+        return !worldPacks.isEmpty();
+    }
+    
+    ResourcePackInfo getPack(String filename) {
+        return packsByFilename.get(filename);
+    }
+    
+    ResourcePackInfo getPack(UUID id) {
+        return packsById.get(id);
+    }
+    
+    boolean isLoaded(String filename) {
+        return packsByFilename.containsKey(filename);
+    }
+    
+    boolean isEmpty() {
+        return packs.isEmpty();
+    }
+    
+    int size() {
+        return packs.size();
+    }
+    
+    /**
+     * The same registry with every pack URL moved from one base URL to another, used when
+     * the server's public address becomes known after the packs were loaded.
+     */
+    PackRegistry withBaseUrl(String oldBaseUrl, String newBaseUrl) {
+        if (oldBaseUrl == null || oldBaseUrl.equals(newBaseUrl) || packs.isEmpty()) {
+            return this;
+        }
+        Map<String, ResourcePackInfo> moved = new HashMap<>();
+        for (ResourcePackInfo pack : packs) {
+            String url = pack.url.startsWith(oldBaseUrl) ? newBaseUrl + pack.url.substring(oldBaseUrl.length()) : pack.url;
+            moved.put(pack.filename, new ResourcePackInfo(pack.filename, url, pack.hash, pack.file, pack.sourceSize));
+        }
+        Map<String, List<ResourcePackInfo>> movedWorldPacks = new LinkedHashMap<>();
+        for (Map.Entry<String, List<ResourcePackInfo>> entry : worldPacks.entrySet()) {
+            movedWorldPacks.put(entry.getKey(), replace(entry.getValue(), moved));
+        }
+        ResourcePackInfo movedMergedPack = mergedPack != null ? moved.get(mergedPack.filename) : null;
+        return new PackRegistry(replace(defaultPacks, moved), movedWorldPacks, movedMergedPack, forcePack, autoApplyAllWorlds);
+    }
+    
+    private static List<ResourcePackInfo> replace(List<ResourcePackInfo> packs, Map<String, ResourcePackInfo> moved) {
+        List<ResourcePackInfo> result = new ArrayList<>(packs.size());
+        for (ResourcePackInfo pack : packs) {
+            result.add(moved.get(pack.filename));
+        }
+        return result;
+    }
+    
+    boolean isForcePack() {
+        return forcePack;
+    }
+    
+    boolean isAutoApplyAllWorlds() {
+        return autoApplyAllWorlds;
+    }
+}
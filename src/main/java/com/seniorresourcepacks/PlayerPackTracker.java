@@ -0,0 +1,140 @@
+package com.seniorresourcepacks;
+
+import org.bukkit.event.player.PlayerResourcePackStatusEvent.Status;
+
+import java.util.*;
+
+/**
+ * Remembers which packs were sent to each online player and where each one stands,
+ * keyed by the pack UUID used with the multi-pack API.
+ *
+ * Not thread-safe: every method is meant to be called from the main server thread.
+ */
+final class PlayerPackTracker {
+    
+    static final class PackDelivery {
+        final ResourcePackInfo pack;
+        boolean finished = false;
+        boolean loaded = false;
+        
+        PackDelivery(ResourcePackInfo pack) {
+            this.pack = pack;
+        }
+    }
+    
+    private final Map<UUID, Map<UUID, PackDelivery>> deliveries = new HashMap<>();
+    
+    // Kept in send order, which is the client's stacking order: a re-sent pack goes on top
+    void markSent(UUID playerId, ResourcePackInfo pack) {
+        Map<UUID, PackDelivery> packs = deliveries.computeIfAbsent(playerId, id -> new LinkedHashMap<>());
+        packs.remove(pack.id);
+        packs.put(pack.id, new PackDelivery(pack));
+    }
+    
+    void markRemoved(UUID playerId, UUID packId) {
+        Map<UUID, PackDelivery> packs = deliveries.get(playerId);
+        if (packs != null) {
+            packs.remove(packId);
+        }
+    }
+    
+    /**
+     * Whether a status ends a delivery. ACCEPTED and DOWNLOADED are steps on the way, and
+     * DISCARDED is what the client answers for the copy that a re-send under the same id
+     * replaced: by the time it arrives the id belongs to the new delivery, which goes on.
+     */
+    static boolean isFinal(Status status) {
+        return status != Status.ACCEPTED && status != Status.DOWNLOADED && status != Status.DISCARDED;
+    }
+    
+    /**
+     * Records a status the client reported for one pack. Returns true if it settled a
+     * delivery that was still pending, false for intermediate statuses, repeats and packs
+     * this plugin did not send (or has since removed).
+     */
+    boolean recordStatus(UUID playerId, UUID packId, Status status) {
+        PackDelivery delivery = getDelivery(playerId, packId);
+        if (!isFinal(status) || delivery == null || delivery.finished) {
+            return false;
+        }
+        delivery.finished = true;
+        delivery.loaded = status == Status.SUCCESSFULLY_LOADED;
+        return true;
+    }
+    
+    /**
+     * True if this exact pack (same id and hash) was already sent to the player and is
+     * either still on its way or loaded. Declined or failed packs are never current.
+     */
+    boolean isCurrent(UUID playerId, ResourcePackInfo pack) {
+        PackDelivery delivery = getDelivery(playerId, pack.id);
+        return delivery != null && Arrays.equals(delivery.pack.hash, pack.hash) && (!delivery.finished || delivery.loaded);
+    }
+    
+    /**
+     * How many of the target packs, from the bottom of the stack up, the player already
+     * holds current and in that same order. Everything sent above them has to come off
+     * and be sent again for the stack to match.
+     */
+    int currentPrefix(UUID playerId, List<ResourcePackInfo> targetPacks) {
+        Map<UUID, PackDelivery> packs = deliveries.get(playerId);
+        if (packs == null) {
+            return 0;
+        }
+        int matched = 0;
+        for (UUID sentPackId : packs.keySet()) {
+            if (matched == targetPacks.size()) {
+                break;
+            }
+            ResourcePackInfo target = targetPacks.get(matched);
+            if (!sentPackId.equals(target.id) || !isCurrent(playerId, target)) {
+                break;
+            }
+            matched++;
+        }
+        return matched;
+    }
+    
+    PackDelivery getDelivery(UUID playerId, UUID packId) {
+        Map<UUID, PackDelivery> packs = deliveries.get(playerId);
+        return packs != null ? packs.get(packId) : null;
+    }
+    
+    // True once no pack sent to the player is still pending
+    boolean isSettled(UUID playerId) {
+        Map<UUID, PackDelivery> packs = deliveries.get(playerId);
+        if (packs == null) {
+            return true;
+        }
+        for (PackDelivery delivery : packs.values()) {
+            if (!delivery.finished) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    // True once every pack sent to the player loaded successfully
+    boolean isFullyLoaded(UUID playerId) {
+        Map<UUID, PackDelivery> packs = deliveries.get(playerId);
+        if (packs == null || packs.isEmpty()) {
+            return false;
+        }
+        for (PackDelivery delivery : packs.values()) {
+            if (!delivery.loaded) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    // In send order, bottom of the client's stack first
+    Set<UUID> getSentPackIds(UUID playerId) {
+        Map<UUID, PackDelivery> packs = deliveries.get(playerId);
+        return packs != null ? new LinkedHashSet<>(packs.keySet()) : Collections.emptySet();
+    }
+    
+    void forget(UUID playerId) {
+        deliveries.remove(playerId);
+    }
+}
@@ -0,0 +1,149 @@
+package com.seniorresourcepacks;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Finds the server's public IPv4 address by asking several "what is my IP" services at
+ * once. The first valid answer wins and the whole lookup is bounded by one deadline, so
+ * an offline host waits at most that long, and never on the main thread. The last good
+ * answer is kept on disk so a restart has an address straight away.
+ */
+final class PublicIpResolver {
+    
+    private final List<String> services;
+    private final long deadlineMillis;
+    private final File cacheFile;
+    private final Logger logger;
+    
+    PublicIpResolver(List<String> services, long deadlineMillis, File cacheFile, Logger logger) {
+        this.services = List.copyOf(services);
+        this.deadlineMillis = Math.max(1, deadlineMillis);
+        this.cacheFile = cacheFile;
+        this.logger = logger;
+    }
+    
+    // The address found by the last successful lookup, or null if there is none
+    String readCached() {
+        if (!cacheFile.isFile()) {
+            return null;
+        }
+        try {
+            String ip = new String(Files.readAllBytes(cacheFile.toPath()), StandardCharsets.UTF_8).trim();
+            return isValidIpv4(ip) ? ip : null;
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Could not read cached public IP", e);
+            return null;
+        }
+    }
+    
+    /**
+     * Queries every service in parallel. Completes with the first valid address, or with
+     * null once all of them failed or the deadline passed, whichever comes first. A found
+     * address is already cached by the time the returned future completes.
+     */
+    CompletableFuture<String> resolve() {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        if (services.isEmpty()) {
+            result.complete(null);
+            return result;
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(services.size(), runnable -> {
+            Thread thread = new Thread(runnable, "SeniorResourcePacks-IpLookup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger remaining = new AtomicInteger(services.size());
+        for (String service : services) {
+            executor.execute(() -> {
+                String ip = null;
+                try {
+                    ip = query(service);
+                } catch (IOException | RuntimeException e) {
+                    logger.fine("Failed to get IP from " + service + ": " + e.getMessage());
+                }
+                if (ip != null) {
+                    if (result.complete(ip)) {
+                        logger.info("Detected external IP from " + service + ": " + ip);
+                    }
+                } else if (remaining.decrementAndGet() == 0) {
+                    result.complete(null);
+                }
+            });
+        }
+        
+        result.completeOnTimeout(null, deadlineMillis, TimeUnit.MILLISECONDS);
+        return result.whenComplete((ip, error) -> {
+            // Before shutting down, which may interrupt this very thread
+            if (ip != null) {
+                writeCache(ip);
+            }
+            // Lookups still running are bounded by their own timeouts, nothing waits for them
+            executor.shutdownNow();
+        });
+    }
+    
+    private String query(String service) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(service).openConnection();
+        try {
+            connection.setRequestMethod("GET");
+            connection.setConnectTimeout((int) deadlineMillis);
+            connection.setReadTimeout((int) deadlineMillis);
+            connection.setRequestProperty("User-Agent", "SeniorResourcePacks/1.0.0");
+            if (connection.getResponseCode() != 200) {
+                return null;
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+                String line = reader.readLine();
+                String ip = line != null ? line.trim() : "";
+                return isValidIpv4(ip) ? ip : null;
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+    
+    private void writeCache(String ip) {
+        if (ip.equals(readCached())) {
+            return;
+        }
+        File tmp = new File(cacheFile.getPath() + ".tmp");
+        try {
+            File folder = cacheFile.getParentFile();
+            if (folder != null && !folder.isDirectory() && !folder.mkdirs()) {
+                throw new IOException("Could not create " + folder);
+            }
+            Files.write(tmp.toPath(), (ip + "\n").getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not cache the detected public IP", e);
+            tmp.delete();
+        }
+    }
+    
+    static boolean isValidIpv4(String ip) {
+        String[] parts = ip.split("\\.", -1);
+        if (parts.length != 4) {
+            return false;
+        }
+        for (String part : parts) {
+            if (part.isEmpty() || part.length() > 3 || !part.chars().allMatch(Character::isDigit) || Integer.parseInt(part) > 255) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
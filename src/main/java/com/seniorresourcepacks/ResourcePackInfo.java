@@ -0,0 +1,29 @@
+package com.seniorresourcepacks;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+final class ResourcePackInfo {
+    // Stable per filename, so re-sending an updated pack replaces the old one on the client
+    public final UUID id;
+    public final String filename;
+    public final String url;
+    public final byte[] hash;
+    public final File file;
+    // Size of the pack as configured, before the optimizer rewrote it into file
+    public final long sourceSize;
+    
+    public ResourcePackInfo(String filename, String url, byte[] hash, File file) {
+        this(filename, url, hash, file, file.length());
+    }
+    
+    public ResourcePackInfo(String filename, String url, byte[] hash, File file, long sourceSize) {
+        this.id = UUID.nameUUIDFromBytes(("SeniorResourcePacks:" + filename).getBytes(StandardCharsets.UTF_8));
+        this.filename = filename;
+        this.url = url;
+        this.hash = hash;
+        this.file = file;
+        this.sourceSize = sourceSize;
+    }
+}
@@ -4,47 +4,68 @@ import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerResourcePackStatusEvent;
 import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.io.*;
 import java.net.*;
-import java.nio.file.Files;
-import java.security.MessageDigest;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
 import java.util.logging.Level;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 public class SeniorResourcePacks extends JavaPlugin implements Listener {
     
-    private List<ResourcePackInfo> resourcePacks = new ArrayList<>();
+    private static final long RELOAD_WAIT_SECONDS = 120;
+    
+    // Replaced wholesale when a reload finishes, never mutated in place
+    private final AtomicReference<PackRegistry> registry = new AtomicReference<>(PackRegistry.EMPTY);
+    private CompletableFuture<Integer> pendingReload;
     private File packsFolder;
-    private String baseUrl;
-    private ServerSocket httpSocket;
-    private ExecutorService executor;
-    private boolean serverRunning = false;
+    // Written on the main thread only; may change once the public IP has been detected
+    private volatile String baseUrl;
+    private PackHttpServer httpServer;
+    private final BandwidthLimiter bandwidthLimiter = new BandwidthLimiter();
+    private final PackDispatchQueue dispatchQueue = new PackDispatchQueue(this::dispatchResourcePacks);
+    private BukkitTask dispatchTask;
+    private long dispatchIntervalTicks;
+    private final PlayerPackTracker packTracker = new PlayerPackTracker();
+    private final LongAdder suppressedSends = new LongAdder();
+    private final PackMetrics metrics = new PackMetrics();
+    private final DeliveryTimeline deliveryTimeline = new DeliveryTimeline();
+    private volatile boolean serverRunning = false;
     private int httpPort;
-    
-    private class ResourcePackInfo {
-        public String filename;
-        public String url;
-        public byte[] hash;
-        public File file;
-        
-        public ResourcePackInfo(String filename, String url, byte[] hash, File file) {
-            this.filename = filename;
-            this.url = url;
-            this.hash = hash;
-            this.file = file;
-        }
-    }
+    private PackHashIndex hashIndex;
+    private PackMerger packMerger;
+    private SinglePackClients singlePackClients = SinglePackClients.NONE;
+    private PackDownloadHandler downloadHandler;
+    private PackFolderListing packFolderListing;
+    private volatile DashboardRenderer.PacksJson packsJson;
+    private AccessLog accessLog;
+    private PublicIpResolver ipResolver;
+    // "quiet", "normal" or "verbose", see logging.console in config.yml
+    private volatile String consoleLog = "normal";
     
     @Override
     public void onEnable() {
@@ -58,11 +79,30 @@ public class SeniorResourcePacks extends JavaPlugin implements Listener {
         // Save default config
         saveDefaultConfig();
         
+        // Load cached pack hashes so unchanged packs are not rehashed
+        hashIndex = new PackHashIndex(new File(getDataFolder(), "hash-index.bin"));
+        try {
+            if (!hashIndex.load()) {
+                getLogger().warning("Pack hash index was corrupt, affected entries will be rebuilt");
+            }
+        } catch (IOException e) {
+            getLogger().log(Level.WARNING, "Could not read pack hash index, packs will be rehashed", e);
+        }
+        
+        packMerger = new PackMerger(new File(getDataFolder(), "merged"), getLogger());
+        if (getServer().getPluginManager().getPlugin("ViaVersion") != null) {
+            singlePackClients = SinglePackClients.viaVersion(getLogger());
+        }
+        downloadHandler = new PackDownloadHandler(getLogger(), registry::get, packsFolder, metrics, deliveryTimeline);
+        packFolderListing = new PackFolderListing(packsFolder, getLogger());
+        packFolderListing.startWatching();
+        startAccessLog();
+        applyLoggingSettings();
+        ipResolver = createIpResolver();
+        
         // Start simple HTTP server
         startSimpleHttpServer();
-        
-        // Load resource packs from config
-        loadResourcePacks();
+        detectPublicIpInBackground();
         
         // Register events
         getServer().getPluginManager().registerEvents(this, this);
@@ -71,27 +111,36 @@ public class SeniorResourcePacks extends JavaPlugin implements Listener {
         getLogger().info("Pack folder location: " + packsFolder.getAbsolutePath());
         getLogger().info("HTTP server running on: " + baseUrl);
         
-        // Apply packs to existing players
-        for (Player player : Bukkit.getOnlinePlayers()) {
-            Bukkit.getScheduler().runTaskLater(this, () -> {
-                applyResourcePacks(player);
-            }, 20L);
-        }
+        // Refresh the measured pack throughput once a second
+        Bukkit.getScheduler().runTaskTimerAsynchronously(this, bandwidthLimiter::sample, 20L, 20L);
+        
+        // Spread pack prompts over time instead of sending everyone at once
+        applyDispatchSettings();
+        
+        // Load resource packs from config in the background, then queue packs for existing players
+        reloadResourcePacksAsync().thenRun(() -> {
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                queueResourcePacks(player);
+            }
+        });
     }
     
     @Override
     public void onDisable() {
         serverRunning = false;
-        if (httpSocket != null && !httpSocket.isClosed()) {
+        if (packFolderListing != null) {
+            packFolderListing.close();
+        }
+        if (httpServer != null) {
             try {
-                httpSocket.close();
+                httpServer.stop();
                 getLogger().info("HTTP server stopped.");
             } catch (IOException e) {
                 getLogger().log(Level.WARNING, "Error stopping HTTP server", e);
             }
         }
-        if (executor != null) {
-            executor.shutdown();
+        if (accessLog != null) {
+            accessLog.close();
         }
         getLogger().info("Senior Resource Packs plugin has been disabled!");
     }
@@ -100,35 +149,30 @@ public class SeniorResourcePacks extends JavaPlugin implements Listener {
         try {
             httpPort = getConfig().getInt("http_port", 8080);
             
+            PackHttpServer.Settings settings = new PackHttpServer.Settings();
+            settings.backlog = getConfig().getInt("http_backlog", 256);
+            settings.maxConnections = Math.max(1, getConfig().getInt("http_max_connections", 512));
+            settings.keepAliveTimeoutMillis = Math.max(1, getConfig().getInt("http_keep_alive_timeout_seconds", 5)) * 1000;
+            settings.maxRequestsPerConnection = Math.max(1, getConfig().getInt("http_max_requests_per_connection", 100));
+            settings.writeTimeoutMillis = Math.max(0, getConfig().getInt("http_write_timeout_seconds", 30)) * 1000;
+            settings.threadMode = getConfig().getString("http_thread_mode", "auto");
+            settings.bandwidthLimiter = bandwidthLimiter;
+            settings.metrics = metrics;
+            settings.accessLog = accessLog;
+            applyBandwidthSettings();
+            
             // Auto-detect the server IP
             String serverIp = detectServerIp();
             
             // Bind to 0.0.0.0 to accept connections from all interfaces
-            httpSocket = new ServerSocket(httpPort, 50, InetAddress.getByName("0.0.0.0"));
+            httpServer = new PackHttpServer(getLogger(), this::handleHttpRequest, settings);
+            httpServer.start(new InetSocketAddress(InetAddress.getByName("0.0.0.0"), httpPort));
             baseUrl = "http://" + serverIp + ":" + httpPort + "/";
             serverRunning = true;
             
-            executor = Executors.newFixedThreadPool(5);
-            
-            // Create final copies for lambda
-            final String finalServerIp = serverIp;
-            final int finalHttpPort = httpPort;
-            
-            // Start server thread
-            new Thread(() -> {
-                getLogger().info("Simple HTTP server started on 0.0.0.0:" + finalHttpPort + " (accessible via " + finalServerIp + ":" + finalHttpPort + ")");
-                
-                while (serverRunning && !httpSocket.isClosed()) {
-                    try {
-                        Socket clientSocket = httpSocket.accept();
-                        executor.submit(() -> handleHttpRequest(clientSocket));
-                    } catch (IOException e) {
-                        if (serverRunning) {
-                            getLogger().log(Level.WARNING, "Error accepting HTTP connection", e);
-                        }
-                    }
-                }
-            }).start();
+            getLogger().info("Simple HTTP server started on 0.0.0.0:" + httpPort + " (accessible via " + serverIp + ":" + httpPort + ")");
+            getLogger().info("HTTP server accepts up to " + settings.maxConnections + " concurrent connections on "
+                    + (httpServer.usesVirtualThreads() ? "virtual" : "platform") + " threads");
             
         } catch (Exception e) {
             getLogger().log(Level.SEVERE, "Failed to start simple HTTP server!", e);
@@ -143,376 +187,214 @@ public class SeniorResourcePacks extends JavaPlugin implements Listener {
         }
     }
     
-    private void handleHttpRequest(Socket clientSocket) {
-        try (BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-             PrintWriter out = new PrintWriter(clientSocket.getOutputStream());
-             BufferedOutputStream dataOut = new BufferedOutputStream(clientSocket.getOutputStream())) {
-            
-            String input = in.readLine();
-            if (input == null) return;
-            
-            String[] tokens = input.split(" ");
-            if (tokens.length < 2) return;
-            
-            String method = tokens[0];
-            String fileRequested = tokens[1];
-            
-            // Handle GET and POST requests
-            if (!method.equals("GET") && !method.equals("POST")) {
-                sendErrorResponse(out, dataOut, 405, "Method Not Allowed");
-                return;
-            }
-            
-            // Handle web interface requests
-            if (fileRequested.equals("/") || fileRequested.equals("/index") || fileRequested.equals("/index.html")) {
-                serveWebInterface(out, dataOut);
-                return;
-            }
-            
-            // Handle API requests
-            if (fileRequested.startsWith("/api/")) {
-                handleApiRequest(method, fileRequested, in, out, dataOut);
-                return;
-            }
-            
-            // Extract filename from path
-            String filename = fileRequested.substring(fileRequested.lastIndexOf("/") + 1);
-            
-            getLogger().info("HTTP request for: " + filename);
-            
-            File packFile = new File(packsFolder, filename);
-            if (packFile.exists() && packFile.isFile() && filename.endsWith(".zip")) {
-                try {
-                    byte[] fileData = Files.readAllBytes(packFile.toPath());
-                    
-                    // Send HTTP headers
-                    out.println("HTTP/1.1 200 OK");
-                    out.println("Content-Type: application/zip");
-                    out.println("Content-Length: " + fileData.length);
-                    out.println("Content-Disposition: attachment; filename=\"" + filename + "\"");
-                    out.println("Cache-Control: no-cache");
-                    out.println("Access-Control-Allow-Origin: *");
-                    out.println(); // blank line between headers and content
-                    out.flush();
-                    
-                    dataOut.write(fileData, 0, fileData.length);
-                    dataOut.flush();
-                    
-                    getLogger().info("Successfully served: " + filename + " (" + fileData.length + " bytes)");
-                    
-                } catch (Exception e) {
-                    getLogger().log(Level.SEVERE, "Error serving file: " + filename, e);
-                    sendErrorResponse(out, dataOut, 500, "Internal Server Error");
-                }
-            } else {
-                getLogger().warning("Resource pack not found: " + filename);
-                sendErrorResponse(out, dataOut, 404, "File not found: " + filename);
+    private PublicIpResolver createIpResolver() {
+        List<String> services = getConfig().getStringList("ip_detection.services");
+        if (!getConfig().isList("ip_detection.services")) {
+            services = List.of("https://icanhazip.com", "https://ipv4.icanhazip.com", "https://api.ipify.org",
+                    "https://checkip.amazonaws.com", "https://ipinfo.io/ip");
+        }
+        long timeoutMillis = Math.max(1, getConfig().getLong("ip_detection.timeout_seconds", 5)) * 1000;
+        return new PublicIpResolver(services, timeoutMillis, new File(getDataFolder(), "public-ip.txt"), getLogger());
+    }
+    
+    // Startup used the cached or a local address; the lookup runs off the main thread and
+    // moves the pack URLs over once it has an answer
+    private void detectPublicIpInBackground() {
+        String configuredIp = getConfig().getString("server_ip", "");
+        if (!serverRunning || (!configuredIp.isEmpty() && !configuredIp.equals("0.0.0.0"))) {
+            return;
+        }
+        ipResolver.resolve().thenAccept(ip -> {
+            if (ip == null) {
+                getLogger().info("Could not detect the external IP, keeping " + baseUrl);
+            } else if (isEnabled()) {
+                Bukkit.getScheduler().runTask(this, () -> updateServerIp(ip));
             }
-            
+        });
+    }
+    
+    private void updateServerIp(String serverIp) {
+        String oldBaseUrl = baseUrl;
+        String newBaseUrl = "http://" + serverIp + ":" + httpPort + "/";
+        if (!serverRunning || newBaseUrl.equals(oldBaseUrl)) {
+            return;
+        }
+        baseUrl = newBaseUrl;
+        registry.set(registry.get().withBaseUrl(oldBaseUrl, newBaseUrl));
+        getLogger().info("HTTP server now reachable on: " + newBaseUrl);
+    }
+    
+    private void applyBandwidthSettings() {
+        // Configured in KB/s, 0 means unlimited
+        bandwidthLimiter.configure(
+                getConfig().getLong("bandwidth.global_kb_per_second", 0) * 1024,
+                getConfig().getLong("bandwidth.per_connection_kb_per_second", 0) * 1024,
+                getConfig().getLong("bandwidth.uplink_kb_per_second", 0) * 1024,
+                getConfig().getLong("bandwidth.reserved_kb_per_second", 0) * 1024);
+    }
+    
+    private void startAccessLog() {
+        if (!getConfig().getBoolean("logging.access_log.enabled", true)) {
+            return;
+        }
+        AccessLog log = new AccessLog(new File(getDataFolder(), "logs/access.log"), 8192,
+                Math.max(1, getConfig().getLong("logging.access_log.max_file_size_mb", 10)) * 1024 * 1024,
+                getConfig().getInt("logging.access_log.max_files", 5), getLogger());
+        try {
+            log.start();
+            accessLog = log;
         } catch (IOException e) {
-            getLogger().log(Level.WARNING, "Error handling HTTP request", e);
-        } finally {
-            try {
-                clientSocket.close();
-            } catch (IOException e) {
-                // Ignore
-            }
+            getLogger().log(Level.WARNING, "Could not open the access log, HTTP requests will not be logged", e);
         }
     }
     
-    private void sendErrorResponse(PrintWriter out, BufferedOutputStream dataOut, int code, String message) throws IOException {
-        out.println("HTTP/1.1 " + code + " " + message);
-        out.println("Content-Type: text/plain");
-        out.println("Content-Length: " + message.length());
-        out.println();
-        out.flush();
-        
-        dataOut.write(message.getBytes(), 0, message.length());
-        dataOut.flush();
-    }
-    
-    private void serveWebInterface(PrintWriter out, BufferedOutputStream dataOut) throws IOException {
-        StringBuilder html = new StringBuilder();
-        html.append("<!DOCTYPE html>");
-        html.append("<html lang='en'>");
-        html.append("<head>");
-        html.append("<meta charset='UTF-8'>");
-        html.append("<meta name='viewport' content='width=device-width, initial-scale=1.0'>");
-        html.append("<title>CloudNord Resource Pack Manager</title>");
-        html.append("<link href='https://cdnjs.cloudflare.com/ajax/libs/font-awesome/6.0.0/css/all.min.css' rel='stylesheet'>");
-        html.append("<link href='https://fonts.googleapis.com/css2?family=Poppins:wght@300;400;500;600;700&display=swap' rel='stylesheet'>");
-        html.append("<style>");
-        html.append("* { margin: 0; padding: 0; box-sizing: border-box; }");
-        html.append("body { font-family: 'Poppins', sans-serif; background: linear-gradient(120deg, #a8edea 0%, #fed6e3 100%); min-height: 100vh; padding: 15px; }");
-        html.append(".container { max-width: 1200px; margin: 0 auto; }");
-        html.append(".header { background: white; border-radius: 16px; padding: 25px; margin-bottom: 25px; box-shadow: 0 10px 30px rgba(0,0,0,0.1); text-align: center; }");
-        html.append(".brand { font-size: 14px; color: #7c3aed; font-weight: 500; margin-bottom: 8px; }");
-        html.append(".brand strong { color: #7c3aed; }");
-        html.append("h1 { font-size: 1.8rem; font-weight: 600; color: #1f2937; margin: 0; }");
-        html.append("h1 i { color: #7c3aed; margin-right: 10px; }");
-        html.append(".content { display: grid; grid-template-columns: 1fr; gap: 20px; }");
-        html.append(".card { background: white; border-radius: 16px; padding: 25px; box-shadow: 0 8px 25px rgba(0,0,0,0.1); transition: transform 0.2s ease; }");
-        html.append(".card:hover { transform: translateY(-2px); }");
-        html.append(".card-title { font-size: 1.2rem; font-weight: 600; color: #1f2937; margin-bottom: 20px; display: flex; align-items: center; gap: 8px; }");
-        html.append(".card-title i { color: #7c3aed; font-size: 1.1rem; }");
-        html.append(".status-grid { display: grid; grid-template-columns: repeat(auto-fit, minmax(180px, 1fr)); gap: 15px; }");
-        html.append(".status-item { background: #f8fafc; padding: 18px; border-radius: 12px; text-align: center; border-left: 4px solid #7c3aed; }");
-        html.append(".status-label { font-size: 0.85rem; color: #64748b; margin-bottom: 6px; }");
-        html.append(".status-value { font-size: 1rem; font-weight: 600; color: #1f2937; }");
-        html.append(".status-value.running { color: #059669; }");
-        html.append(".status-value.stopped { color: #dc2626; }");
-        html.append(".status-value i { margin-right: 6px; }");
-        html.append("table { width: 100%; border-collapse: collapse; background: white; border-radius: 12px; overflow: hidden; }");
-        html.append("th { background: #7c3aed; color: white; padding: 14px; font-weight: 500; font-size: 0.9rem; }");
-        html.append("td { padding: 14px; border-bottom: 1px solid #f1f5f9; font-size: 0.9rem; }");
-        html.append("tr:last-child td { border-bottom: none; }");
-        html.append("tr:hover { background: #f8fafc; }");
-        html.append(".pack-status { padding: 4px 10px; border-radius: 12px; font-size: 0.8rem; font-weight: 500; }");
-        html.append(".pack-loaded { background: #dcfce7; color: #166534; }");
-        html.append(".pack-available { background: #fef3c7; color: #92400e; }");
-        html.append(".download-link { color: #7c3aed; text-decoration: none; font-weight: 500; }");
-        html.append(".download-link:hover { color: #5b21b6; }");
-        html.append(".form-grid { display: grid; grid-template-columns: repeat(auto-fit, minmax(220px, 1fr)); gap: 18px; }");
-        html.append(".form-group { margin-bottom: 15px; }");
-        html.append("label { display: block; margin-bottom: 6px; font-weight: 500; color: #374151; font-size: 0.9rem; }");
-        html.append("input[type='text'], input[type='number'] { width: 100%; padding: 10px 14px; border: 2px solid #e5e7eb; border-radius: 10px; font-size: 0.9rem; transition: border-color 0.2s; }");
-        html.append("input[type='text']:focus, input[type='number']:focus { outline: none; border-color: #7c3aed; }");
-        html.append("input[type='checkbox'] { width: 18px; height: 18px; accent-color: #7c3aed; }");
-        html.append(".checkbox-label { display: flex; align-items: center; gap: 8px; font-size: 0.85rem; color: #6b7280; }");
-        html.append(".button-group { display: flex; gap: 12px; margin-top: 20px; }");
-        html.append(".btn { padding: 10px 20px; border: none; border-radius: 10px; font-size: 0.9rem; font-weight: 500; cursor: pointer; transition: all 0.2s; display: flex; align-items: center; gap: 6px; }");
-        html.append(".btn-primary { background: #7c3aed; color: white; }");
-        html.append(".btn-primary:hover { background: #5b21b6; }");
-        html.append(".btn-secondary { background: #6b7280; color: white; }");
-        html.append(".btn-secondary:hover { background: #4b5563; }");
-        html.append(".alert { padding: 12px 16px; border-radius: 10px; margin: 15px 0; font-size: 0.9rem; display: flex; align-items: center; gap: 8px; }");
-        html.append(".alert-success { background: #d1fae5; color: #065f46; }");
-        html.append(".alert-error { background: #fee2e2; color: #991b1b; }");
-        html.append(".no-packs { text-align: center; padding: 30px; color: #6b7280; }");
-        html.append(".no-packs i { font-size: 2.5rem; color: #d1d5db; margin-bottom: 12px; }");
-        html.append(".footer { text-align: center; margin-top: 30px; color: #6b7280; font-size: 0.85rem; }");
-        html.append("@media (max-width: 768px) { ");
-        html.append("  body { padding: 10px; } ");
-        html.append("  .header { padding: 20px; } ");
-        html.append("  h1 { font-size: 1.5rem; } ");
-        html.append("  .card { padding: 20px; } ");
-        html.append("  .status-grid { grid-template-columns: 1fr 1fr; } ");
-        html.append("  .form-grid { grid-template-columns: 1fr; } ");
-        html.append("  .button-group { flex-direction: column; } ");
-        html.append("  table { font-size: 0.8rem; } ");
-        html.append("  th, td { padding: 10px 8px; } ");
-        html.append("} ");
-        html.append("@media (max-width: 480px) { ");
-        html.append("  .status-grid { grid-template-columns: 1fr; } ");
-        html.append("  .status-item { padding: 15px; } ");
-        html.append("  .header { padding: 15px; } ");
-        html.append("  .card { padding: 15px; } ");
-        html.append("} ");
-        html.append("</style>");
-        html.append("</head>");
-        html.append("<body>");
-        html.append("<div class='container'>");
-        html.append("<div class='header'>");
-        html.append("<div class='brand'><i class='fas fa-cloud'></i> Powered by <strong>CloudNord.net</strong></div>");
-        html.append("<h1><i class='fas fa-cube'></i> Resource Pack Manager</h1>");
-        html.append("</div>");
-        
-        html.append("<div class='content'>");
-        
-        // Server Status Section
-        html.append("<div class='card'>");
-        html.append("<div class='card-title'><i class='fas fa-server'></i>Server Status</div>");
-        html.append("<div class='status-grid'>");
-        html.append("<div class='status-item'>");
-        html.append("<div class='status-label'>HTTP Server</div>");
-        html.append("<div class='status-value ").append(serverRunning ? "running" : "stopped").append("'>");
-        html.append("<i class='fas ").append(serverRunning ? "fa-check-circle" : "fa-times-circle").append("'></i> ");
-        html.append(serverRunning ? "Running" : "Stopped").append("</div>");
-        html.append("</div>");
-        html.append("<div class='status-item'>");
-        html.append("<div class='status-label'>Port</div>");
-        html.append("<div class='status-value'><i class='fas fa-plug'></i> ").append(httpPort).append("</div>");
-        html.append("</div>");
-        html.append("<div class='status-item'>");
-        html.append("<div class='status-label'>Loaded Packs</div>");
-        html.append("<div class='status-value'><i class='fas fa-box'></i> ").append(resourcePacks.size()).append("</div>");
-        html.append("</div>");
-        html.append("<div class='status-item'>");
-        html.append("<div class='status-label'>Server IP</div>");
-        html.append("<div class='status-value'><i class='fas fa-globe'></i> ").append(baseUrl.contains("://") ? baseUrl.split("://")[1].split(":")[0] : "Auto").append("</div>");
-        html.append("</div>");
-        html.append("</div>");
-        html.append("</div>");
-        
-        // Available Resource Packs Section
-        html.append("<div class='card'>");
-        html.append("<div class='card-title'><i class='fas fa-archive'></i>Available Resource Packs</div>");
-        File[] packFiles = packsFolder.listFiles((dir, name) -> name.toLowerCase().endsWith(".zip"));
-        if (packFiles != null && packFiles.length > 0) {
-            html.append("<table>");
-            html.append("<tr><th><i class='fas fa-cube'></i> Pack Name</th><th><i class='fas fa-weight-hanging'></i> Size</th><th><i class='fas fa-info-circle'></i> Status</th><th><i class='fas fa-download'></i> Download</th></tr>");
-            for (File pack : packFiles) {
-                boolean isLoaded = resourcePacks.stream().anyMatch(rp -> rp.filename.equals(pack.getName()));
-                html.append("<tr>");
-                html.append("<td><i class='fas fa-file-archive'></i> ").append(pack.getName()).append("</td>");
-                html.append("<td>").append(formatFileSize(pack.length())).append("</td>");
-                html.append("<td><span class='pack-status ").append(isLoaded ? "pack-loaded" : "pack-available").append("'>");
-                html.append(isLoaded ? "<i class='fas fa-check'></i> Loaded" : "<i class='fas fa-clock'></i> Available").append("</span></td>");
-                html.append("<td><a href='/").append(pack.getName()).append("' target='_blank' class='download-link'>");
-                html.append("<i class='fas fa-external-link-alt'></i> Download</a></td>");
-                html.append("</tr>");
+    private void applyLoggingSettings() {
+        String level = getConfig().getString("logging.console", "normal").toLowerCase(Locale.ROOT);
+        if (!level.equals("quiet") && !level.equals("verbose")) {
+            level = "normal";
+        }
+        consoleLog = level;
+        if (accessLog != null) {
+            accessLog.setEchoToConsole(level.equals("verbose"));
+        }
+    }
+    
+    // Per-player pack events, shown unless the console is set to quiet
+    private boolean logsPlayerEvents() {
+        return !consoleLog.equals("quiet");
+    }
+    
+    private boolean logsVerbose() {
+        return consoleLog.equals("verbose");
+    }
+    
+    private void applyDispatchSettings() {
+        dispatchQueue.configure(
+                getConfig().getInt("dispatch.max_in_flight", 20),
+                getConfig().getInt("dispatch.per_cycle", 2),
+                getConfig().getLong("dispatch.in_flight_timeout_seconds", 120) * 1000);
+        
+        // The tick task only runs at a fixed period, so a new interval needs a new task
+        long intervalTicks = Math.max(1, getConfig().getLong("dispatch.interval_ticks", 5));
+        if (dispatchTask == null || intervalTicks != dispatchIntervalTicks) {
+            if (dispatchTask != null) {
+                dispatchTask.cancel();
             }
-            html.append("</table>");
-        } else {
-            html.append("<div class='no-packs'>");
-            html.append("<i class='fas fa-folder-open'></i>");
-            html.append("<h3>No Resource Packs Found</h3>");
-            html.append("<p>Upload .zip files to the pack folder:</p>");
-            html.append("<code>").append(packsFolder.getAbsolutePath()).append("</code>");
-            html.append("</div>");
-        }
-        html.append("</div>");
-        
-        // Configuration Section
-        html.append("<div class='card'>");
-        html.append("<div class='card-title'><i class='fas fa-cogs'></i>Configuration</div>");
-        html.append("<form onsubmit='updateConfig(event)'>");
-        html.append("<div class='form-grid'>");
-        html.append("<div class='form-group'>");
-        html.append("<label for='server_ip'><i class='fas fa-globe'></i> Server IP</label>");
-        html.append("<input type='text' id='server_ip' value='").append(getConfig().getString("server_ip", "")).append("' placeholder='Leave empty for auto-detect'>");
-        html.append("</div>");
-        html.append("<div class='form-group'>");
-        html.append("<label for='http_port'><i class='fas fa-plug'></i> HTTP Port</label>");
-        html.append("<input type='number' id='http_port' value='").append(getConfig().getInt("http_port", 8080)).append("' min='1' max='65535'>");
-        html.append("</div>");
-        html.append("<div class='form-group'>");
-        html.append("<label><i class='fas fa-exclamation-triangle'></i> Force Pack</label>");
-        html.append("<div class='checkbox-label'>");
-        html.append("<input type='checkbox' id='force_pack' ").append(getConfig().getBoolean("force_pack", false) ? "checked" : "").append(">");
-        html.append("<span>Force players to accept resource packs</span>");
-        html.append("</div>");
-        html.append("</div>");
-        html.append("<div class='form-group'>");
-        html.append("<label><i class='fas fa-magic'></i> Auto Apply</label>");
-        html.append("<div class='checkbox-label'>");
-        html.append("<input type='checkbox' id='auto_apply' ").append(getConfig().getBoolean("auto_apply_all_worlds", true) ? "checked" : "").append(">");
-        html.append("<span>Automatically apply packs to all worlds</span>");
-        html.append("</div>");
-        html.append("</div>");
-        html.append("</div>");
-        html.append("<div class='button-group'>");
-        html.append("<button type='submit' class='btn btn-primary'><i class='fas fa-save'></i> Save Configuration</button>");
-        html.append("<button type='button' onclick='reloadPlugin()' class='btn btn-secondary'><i class='fas fa-sync-alt'></i> Reload Plugin</button>");
-        html.append("</div>");
-        html.append("</form>");
-        html.append("</div>");
-        
-        html.append("<div id='status'></div>");
-        html.append("</div>"); // Close content
-        
-        html.append("<div class='footer'>");
-        html.append("<p><i class='fas fa-heart' style='color: #ef4444;'></i> Made with CloudNord.net</p>");
-        html.append("</div>");
-        html.append("<script>");
-        html.append("function updateConfig(e) {");
-        html.append("  e.preventDefault();");
-        html.append("  const data = {");
-        html.append("    server_ip: document.getElementById('server_ip').value,");
-        html.append("    http_port: document.getElementById('http_port').value,");
-        html.append("    force_pack: document.getElementById('force_pack').checked,");
-        html.append("    auto_apply: document.getElementById('auto_apply').checked");
-        html.append("  };");
-        html.append("  const saveBtn = document.querySelector('button[type=\"submit\"]');");
-        html.append("  saveBtn.innerHTML = '<i class=\"fas fa-spinner fa-spin\"></i> Saving...';");
-        html.append("  saveBtn.disabled = true;");
-        html.append("  fetch('/api/config', { method: 'POST', headers: {'Content-Type': 'application/json'}, body: JSON.stringify(data) })");
-        html.append("    .then(r => r.json()).then(d => {");
-        html.append("      const icon = d.success ? 'fas fa-check-circle' : 'fas fa-exclamation-circle';");
-        html.append("      document.getElementById('status').innerHTML = '<div class=\"alert alert-' + (d.success ? 'success' : 'error') + '\"><i class=\"' + icon + '\"></i> ' + d.message + '</div>';");
-        html.append("      saveBtn.innerHTML = '<i class=\"fas fa-save\"></i> Save Configuration';");
-        html.append("      saveBtn.disabled = false;");
-        html.append("      if(d.success) setTimeout(() => location.reload(), 2000);");
-        html.append("    }).catch(e => {");
-        html.append("      document.getElementById('status').innerHTML = '<div class=\"alert alert-error\"><i class=\"fas fa-exclamation-circle\"></i> Network error occurred</div>';");
-        html.append("      saveBtn.innerHTML = '<i class=\"fas fa-save\"></i> Save Configuration';");
-        html.append("      saveBtn.disabled = false;");
-        html.append("    });");
-        html.append("}");
-        html.append("function reloadPlugin() {");
-        html.append("  const reloadBtn = document.querySelector('button[onclick=\"reloadPlugin()\"]');");
-        html.append("  reloadBtn.innerHTML = '<i class=\"fas fa-spinner fa-spin\"></i> Reloading...';");
-        html.append("  reloadBtn.disabled = true;");
-        html.append("  fetch('/api/reload', { method: 'POST' })");
-        html.append("    .then(r => r.json()).then(d => {");
-        html.append("      const icon = d.success ? 'fas fa-check-circle' : 'fas fa-exclamation-circle';");
-        html.append("      document.getElementById('status').innerHTML = '<div class=\"alert alert-' + (d.success ? 'success' : 'error') + '\"><i class=\"' + icon + '\"></i> ' + d.message + '</div>';");
-        html.append("      reloadBtn.innerHTML = '<i class=\"fas fa-sync-alt\"></i> Reload Plugin';");
-        html.append("      reloadBtn.disabled = false;");
-        html.append("      if(d.success) setTimeout(() => location.reload(), 2000);");
-        html.append("    }).catch(e => {");
-        html.append("      document.getElementById('status').innerHTML = '<div class=\"alert alert-error\"><i class=\"fas fa-exclamation-circle\"></i> Network error occurred</div>';");
-        html.append("      reloadBtn.innerHTML = '<i class=\"fas fa-sync-alt\"></i> Reload Plugin';");
-        html.append("      reloadBtn.disabled = false;");
-        html.append("    });");
-        html.append("}");
-        html.append("</script>");
-        html.append("</div>");
-        html.append("</body>");
-        html.append("</html>");
-        
-        String htmlContent = html.toString();
-        out.println("HTTP/1.1 200 OK");
-        out.println("Content-Type: text/html; charset=UTF-8");
-        out.println("Content-Length: " + htmlContent.getBytes().length);
-        out.println("Cache-Control: no-cache");
-        out.println();
-        out.flush();
-        
-        dataOut.write(htmlContent.getBytes());
-        dataOut.flush();
-    }
-    
-    private void handleApiRequest(String method, String path, BufferedReader in, PrintWriter out, BufferedOutputStream dataOut) throws IOException {
+            dispatchTask = Bukkit.getScheduler().runTaskTimer(this, dispatchQueue::tick, dispatchTask == null ? 20L : intervalTicks, intervalTicks);
+            dispatchIntervalTicks = intervalTicks;
+        }
+    }
+    
+    private String formatRate(long bytesPerSecond) {
+        return bytesPerSecond <= 0 ? "unlimited" : DashboardRenderer.formatFileSize(bytesPerSecond) + "/s";
+    }
+    
+    private void handleHttpRequest(HttpRequest request, HttpResponse response) throws IOException {
+        String method = request.method;
+        String fileRequested = request.path;
+        
+        // Handle GET and POST requests
+        if (!method.equals("GET") && !method.equals("POST")) {
+            sendErrorResponse(response, 405, "Method Not Allowed");
+            return;
+        }
+        
+        // Handle web interface requests
+        if (fileRequested.equals("/") || fileRequested.equals("/index") || fileRequested.equals("/index.html")) {
+            serveWebInterface(request, response);
+            return;
+        }
+        
+        // Handle API requests
+        if (fileRequested.startsWith("/api/")) {
+            handleApiRequest(request, response);
+            return;
+        }
+        
+        downloadHandler.handle(request, response);
+    }
+    
+    private void sendErrorResponse(HttpResponse response, int code, String message) throws IOException {
+        response.sendText(code, message);
+    }
+    
+    private void serveWebInterface(HttpRequest request, HttpResponse response) throws IOException {
+        // The page itself is static, its script pulls the live parts from /api/status and /api/packs
+        sendCached(request, response, "text/html; charset=UTF-8", DashboardRenderer.SHELL, DashboardRenderer.SHELL_ETAG);
+    }
+    
+    private void serveStatus(HttpResponse response) throws IOException {
+        DashboardRenderer.Model model = new DashboardRenderer.Model();
+        model.serverRunning = serverRunning;
+        model.httpPort = httpPort;
+        model.baseUrl = baseUrl;
+        model.loadedPacks = registry.get().size();
+        model.deliveryStats = deliveryTimeline.getStats();
+        model.configuredServerIp = getConfig().getString("server_ip", "");
+        model.configuredPort = getConfig().getInt("http_port", 8080);
+        model.forcePack = getConfig().getBoolean("force_pack", false);
+        model.autoApplyAllWorlds = getConfig().getBoolean("auto_apply_all_worlds", true);
+        
+        response.header("Cache-Control", "no-cache");
+        response.send(200, "application/json", DashboardRenderer.renderStatus(model));
+    }
+    
+    private void servePacks(HttpRequest request, HttpResponse response) throws IOException {
+        // Only rendered again once the folder listing or the loaded packs were replaced
+        PackFolderListing.Snapshot listing = packFolderListing.get();
+        PackRegistry packs = registry.get();
+        DashboardRenderer.PacksJson cached = packsJson;
+        if (cached == null || !cached.isFor(listing, packs)) {
+            cached = DashboardRenderer.renderPacks(listing, packs, packsFolder);
+            packsJson = cached;
+        }
+        sendCached(request, response, "application/json", cached.body, cached.etag);
+    }
+    
+    // Pre-encoded body with an ETag, answered with 304 when the client already has it
+    private void sendCached(HttpRequest request, HttpResponse response, String contentType, HttpCompression.Encoded body, String etag) throws IOException {
+        // Each encoding is its own representation and needs its own ETag, they all revalidate the same
+        String encoding = response.encodingFor(body);
+        String sentEtag = encoding != null ? etag.substring(0, etag.length() - 1) + "-" + encoding + "\"" : etag;
+        response.header("Cache-Control", "no-cache");
+        response.header("ETag", sentEtag);
+        if (PackDownloadHandler.matchesEtag(request.headers, sentEtag) || PackDownloadHandler.matchesEtag(request.headers, etag)) {
+            response.header("Vary", "Accept-Encoding");
+            response.sendWithoutBody(304);
+            return;
+        }
+        response.send(200, contentType, body);
+    }
+    
+    private void handleApiRequest(HttpRequest request, HttpResponse response) throws IOException {
+        String method = request.method;
+        String path = request.path;
         if (method.equals("POST") && path.equals("/api/config")) {
-            handleConfigUpdate(in, out, dataOut);
+            handleConfigUpdate(request, response);
         } else if (method.equals("POST") && path.equals("/api/reload")) {
-            handlePluginReload(out, dataOut);
+            handlePluginReload(response);
+        } else if (method.equals("GET") && path.equals("/api/metrics")) {
+            serveMetrics(response);
+        } else if (method.equals("GET") && path.equals("/api/status")) {
+            serveStatus(response);
+        } else if (method.equals("GET") && path.equals("/api/packs")) {
+            servePacks(request, response);
         } else {
-            sendJsonResponse(out, dataOut, 404, "{\"success\": false, \"message\": \"API endpoint not found\"}");
+            sendJsonResponse(response, 404, "{\"success\": false, \"message\": \"API endpoint not found\"}");
         }
     }
     
-    private void handleConfigUpdate(BufferedReader in, PrintWriter out, BufferedOutputStream dataOut) throws IOException {
+    private void handleConfigUpdate(HttpRequest request, HttpResponse response) throws IOException {
         try {
-            StringBuilder body = new StringBuilder();
-            String line;
-            int contentLength = 0;
-            
-            // Read headers to get content length
-            String headerLine;
-            while ((headerLine = in.readLine()) != null && !headerLine.isEmpty()) {
-                if (headerLine.toLowerCase().startsWith("content-length:")) {
-                    contentLength = Integer.parseInt(headerLine.split(":")[1].trim());
-                }
-            }
-            
-            // Read JSON body
-            if (contentLength > 0) {
-                char[] buffer = new char[contentLength];
-                in.read(buffer);
-                body.append(buffer);
-            }
-            
             // Parse basic JSON (simple implementation)
-            String jsonData = body.toString();
+            String jsonData = request.bodyAsString();
             getLogger().info("Received config update: " + jsonData);
             
             // Extract values (basic parsing)
-            String serverIp = extractJsonValue(jsonData, "server_ip");
-            String httpPort = extractJsonValue(jsonData, "http_port");
-            boolean forcePack = "true".equals(extractJsonValue(jsonData, "force_pack"));
-            boolean autoApply = "true".equals(extractJsonValue(jsonData, "auto_apply"));
+            String serverIp = SimpleJson.extractValue(jsonData, "server_ip");
+            String httpPort = SimpleJson.extractValue(jsonData, "http_port");
+            boolean forcePack = "true".equals(SimpleJson.extractValue(jsonData, "force_pack"));
+            boolean autoApply = "true".equals(SimpleJson.extractValue(jsonData, "auto_apply"));
             
             // Update config
             getConfig().set("server_ip", serverIp);
@@ -521,72 +403,44 @@ public class SeniorResourcePacks extends JavaPlugin implements Listener {
             getConfig().set("auto_apply_all_worlds", autoApply);
             saveConfig();
             
-            sendJsonResponse(out, dataOut, 200, "{\"success\": true, \"message\": \"Configuration updated successfully! Restart recommended.\"}");
+            sendJsonResponse(response, 200, "{\"success\": true, \"message\": \"Configuration updated successfully! Restart recommended.\"}");
             
         } catch (Exception e) {
             getLogger().log(Level.WARNING, "Error updating configuration", e);
-            sendJsonResponse(out, dataOut, 500, "{\"success\": false, \"message\": \"Error updating configuration: " + e.getMessage() + "\"}");
+            sendJsonResponse(response, 500, "{\"success\": false, \"message\": \"Error updating configuration: " + e.getMessage() + "\"}");
         }
     }
     
-    private void handlePluginReload(PrintWriter out, BufferedOutputStream dataOut) throws IOException {
+    private void handlePluginReload(HttpResponse response) throws IOException {
         try {
-            reloadConfig();
-            loadResourcePacks();
-            sendJsonResponse(out, dataOut, 200, "{\"success\": true, \"message\": \"Plugin reloaded successfully!\"}");
+            // Runs on an HTTP worker, so waiting here never blocks the main thread
+            int loaded = reloadResourcePacksAsync().get(RELOAD_WAIT_SECONDS, TimeUnit.SECONDS);
+            sendJsonResponse(response, 200, "{\"success\": true, \"message\": \"Plugin reloaded successfully! " + loaded + " pack(s) loaded.\"}");
+        } catch (TimeoutException e) {
+            sendJsonResponse(response, 200, "{\"success\": true, \"message\": \"Reload is still running in the background.\"}");
         } catch (Exception e) {
-            sendJsonResponse(out, dataOut, 500, "{\"success\": false, \"message\": \"Error reloading plugin: " + e.getMessage() + "\"}");
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            sendJsonResponse(response, 500, "{\"success\": false, \"message\": \"Error reloading plugin: " + cause.getMessage() + "\"}");
         }
     }
     
-    private void sendJsonResponse(PrintWriter out, BufferedOutputStream dataOut, int code, String json) throws IOException {
-        out.println("HTTP/1.1 " + code + " OK");
-        out.println("Content-Type: application/json");
-        out.println("Content-Length: " + json.getBytes().length);
-        out.println("Cache-Control: no-cache");
-        out.println();
-        out.flush();
-        
-        dataOut.write(json.getBytes());
-        dataOut.flush();
-    }
-    
-    private String extractJsonValue(String json, String key) {
-        String searchKey = "\"" + key + "\":";
-        int startIndex = json.indexOf(searchKey);
-        if (startIndex == -1) return "";
-        
-        startIndex += searchKey.length();
-        while (startIndex < json.length() && Character.isWhitespace(json.charAt(startIndex))) startIndex++;
+    private void serveMetrics(HttpResponse response) throws IOException {
+        Map<String, Number> gauges = new LinkedHashMap<>();
+        gauges.put("http_active_connections", httpServer != null ? httpServer.getActiveConnections() : 0);
+        gauges.put("http_max_connections", httpServer != null ? httpServer.getMaxConnections() : 0);
+        gauges.put("http_egress_bytes_per_second", bandwidthLimiter.getMeasuredBytesPerSecond());
+        gauges.put("dispatch_queue_depth", dispatchQueue.getPublishedQueueDepth());
+        gauges.put("dispatch_in_flight", dispatchQueue.getPublishedInFlight());
+        gauges.put("packs_loaded", registry.get().size());
+        gauges.put("access_log_dropped_entries", accessLog != null ? accessLog.getDroppedCount() : 0);
         
-        if (startIndex >= json.length()) return "";
-        
-        char startChar = json.charAt(startIndex);
-        if (startChar == '"') {
-            startIndex++;
-            int endIndex = json.indexOf('"', startIndex);
-            return endIndex == -1 ? "" : json.substring(startIndex, endIndex);
-        } else if (startChar == 't' || startChar == 'f') {
-            int endIndex = startIndex;
-            while (endIndex < json.length() && (Character.isLetter(json.charAt(endIndex)) || Character.isDigit(json.charAt(endIndex)))) {
-                endIndex++;
-            }
-            return json.substring(startIndex, endIndex);
-        } else if (Character.isDigit(startChar)) {
-            int endIndex = startIndex;
-            while (endIndex < json.length() && (Character.isDigit(json.charAt(endIndex)) || json.charAt(endIndex) == '.')) {
-                endIndex++;
-            }
-            return json.substring(startIndex, endIndex);
-        }
-        
-        return "";
+        response.header("Cache-Control", "no-cache");
+        response.send(200, "text/plain; version=0.0.4; charset=UTF-8", metrics.render(gauges).getBytes(StandardCharsets.UTF_8));
     }
     
-    private String formatFileSize(long bytes) {
-        if (bytes < 1024) return bytes + " B";
-        if (bytes < 1024 * 1024) return (bytes / 1024) + " KB";
-        return (bytes / (1024 * 1024)) + " MB";
+    private void sendJsonResponse(HttpResponse response, int code, String json) throws IOException {
+        response.header("Cache-Control", "no-cache");
+        response.send(code, "application/json", json.getBytes(StandardCharsets.UTF_8));
     }
     
     private String detectServerIp() {
@@ -597,15 +451,12 @@ public class SeniorResourcePacks extends JavaPlugin implements Listener {
             return configuredIp;
         }
         
-        // 2. Try to get external/public IP first (critical for containers/cloud)
-        try {
-            String externalIp = getExternalIP();
-            if (externalIp != null && !externalIp.isEmpty()) {
-                getLogger().info("Detected external IP: " + externalIp);
-                return externalIp;
-            }
-        } catch (Exception e) {
-            getLogger().log(Level.INFO, "Could not detect external IP: " + e.getMessage());
+        // 2. External/public IP found on a previous start (critical for containers/cloud);
+        // a fresh lookup runs in the background once the server is up
+        String cachedIp = ipResolver.readCached();
+        if (cachedIp != null) {
+            getLogger().info("Using cached external IP: " + cachedIp);
+            return cachedIp;
         }
         
         // 3. Check environment variables (common in cloud/container environments)
@@ -648,45 +499,6 @@ public class SeniorResourcePacks extends JavaPlugin implements Listener {
         return "localhost";
     }
     
-    private String getExternalIP() throws Exception {
-        // List of reliable IP detection services
-        String[] ipServices = {
-            "https://icanhazip.com",
-            "https://ipv4.icanhazip.com",
-            "https://api.ipify.org",
-            "https://checkip.amazonaws.com",
-            "https://ipinfo.io/ip"
-        };
-        
-        for (String service : ipServices) {
-            try {
-                java.net.URL url = new java.net.URL(service);
-                java.net.HttpURLConnection connection = (java.net.HttpURLConnection) url.openConnection();
-                connection.setRequestMethod("GET");
-                connection.setConnectTimeout(5000); // 5 second timeout
-                connection.setReadTimeout(10000);   // 10 second timeout
-                connection.setRequestProperty("User-Agent", "SeniorResourcePacks/1.0.0");
-                
-                if (connection.getResponseCode() == 200) {
-                    try (java.io.BufferedReader reader = new java.io.BufferedReader(
-                            new java.io.InputStreamReader(connection.getInputStream()))) {
-                        String ip = reader.readLine().trim();
-                        // Validate IP format
-                        if (ip.matches("\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}")) {
-                            getLogger().info("Successfully detected external IP from " + service + ": " + ip);
-                            return ip;
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                getLogger().fine("Failed to get IP from " + service + ": " + e.getMessage());
-                continue; // Try next service
-            }
-        }
-        
-        throw new Exception("All external IP detection services failed");
-    }
-    
     private String getBestNetworkIP() throws Exception {
         String bestIp = null;
         
@@ -744,30 +556,258 @@ public class SeniorResourcePacks extends JavaPlugin implements Listener {
         return false;
     }
     
-    private void loadResourcePacks() {
-        resourcePacks.clear();
+    /**
+     * Reloads the config and rehashes the configured packs off the main thread.
+     * The config is read and the new pack list published on the main thread, so
+     * joins keep using the previous list until the new one is ready. Overlapping
+     * calls share the reload already in progress. Completes with the pack count.
+     */
+    private CompletableFuture<Integer> reloadResourcePacksAsync() {
+        CompletableFuture<Integer> future;
+        synchronized (this) {
+            if (pendingReload != null) {
+                return pendingReload;
+            }
+            future = new CompletableFuture<>();
+            pendingReload = future;
+        }
+        
+        Runnable start = () -> {
+            try {
+                reloadConfig();
+                applyBandwidthSettings();
+                applyDispatchSettings();
+                applyLoggingSettings();
+                List<String> packNames = getConfiguredPackNames();
+                Map<String, List<String>> worldPackNames = getConfiguredWorldProfiles();
+                String packBaseUrl = baseUrl;
+                boolean forcePack = getConfig().getBoolean("force_pack", false);
+                boolean autoApplyAllWorlds = getConfig().getBoolean("auto_apply_all_worlds", true);
+                int hashThreads = getConfig().getInt("hash_threads", 0);
+                boolean contentAddressed = getConfig().getBoolean("content_addressed_urls", false);
+                String mergedPackName = getMergedPackName();
+                PackOptimizer optimizer = createPackOptimizer();
+                
+                Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
+                    PackRegistry loaded;
+                    try {
+                        loaded = buildRegistry(packNames, worldPackNames, mergedPackName, optimizer, packBaseUrl, hashThreads, contentAddressed, forcePack, autoApplyAllWorlds);
+                    } catch (Throwable t) {
+                        Bukkit.getScheduler().runTask(this, () -> finishReload(future, null, t));
+                        return;
+                    }
+                    // The public IP may have been detected while the packs were hashing
+                    Bukkit.getScheduler().runTask(this, () -> finishReload(future, loaded.withBaseUrl(packBaseUrl, baseUrl), null));
+                });
+            } catch (Throwable t) {
+                finishReload(future, null, t);
+            }
+        };
+        
+        if (Bukkit.isPrimaryThread()) {
+            start.run();
+        } else {
+            Bukkit.getScheduler().runTask(this, start);
+        }
+        return future;
+    }
+    
+    private void finishReload(CompletableFuture<Integer> future, PackRegistry loaded, Throwable error) {
+        synchronized (this) {
+            pendingReload = null;
+        }
+        if (error != null) {
+            getLogger().log(Level.SEVERE, "Failed to reload resource packs", error);
+            future.completeExceptionally(error);
+            return;
+        }
+        registry.set(loaded);
+        // A reload doubles as a manual refresh of the dashboard's folder listing
+        if (packFolderListing != null) {
+            packFolderListing.invalidate();
+        }
+        getLogger().info("Total resource packs loaded: " + loaded.size());
+        future.complete(loaded.size());
+    }
+    
+    private List<String> getConfiguredPackNames() {
+        // resource_packs1..3 always exist, further slots are picked up while they keep going
+        List<String> packNames = new ArrayList<>();
+        for (int slot = 1; slot <= 3 || getConfig().contains("resource_packs" + slot); slot++) {
+            packNames.add(getConfig().getString("resource_packs" + slot, ""));
+        }
+        return packNames;
+    }
+    
+    // World name -> pack filenames, from every profile under "profiles"
+    private Map<String, List<String>> getConfiguredWorldProfiles() {
+        Map<String, List<String>> worldPackNames = new LinkedHashMap<>();
+        ConfigurationSection profiles = getConfig().getConfigurationSection("profiles");
+        if (profiles == null) {
+            return worldPackNames;
+        }
+        for (String profileName : profiles.getKeys(false)) {
+            List<String> packNames = profiles.getStringList(profileName + ".packs");
+            for (String worldName : profiles.getStringList(profileName + ".worlds")) {
+                if (worldPackNames.containsKey(worldName)) {
+                    getLogger().warning("World '" + worldName + "' is listed in more than one profile, keeping the first (ignored in '" + profileName + "')");
+                    continue;
+                }
+                worldPackNames.put(worldName, packNames);
+            }
+        }
+        return worldPackNames;
+    }
+    
+    // Served filename of the merged slot pack, or null when merging is off
+    private String getMergedPackName() {
+        if (!getConfig().getBoolean("merged_pack.enabled", false)) {
+            return null;
+        }
+        String name = getConfig().getString("merged_pack.filename", "merged.zip");
+        if (name.isEmpty() || name.contains("/") || !name.endsWith(".zip")) {
+            getLogger().warning("Invalid merged_pack.filename '" + name + "', using merged.zip");
+            name = "merged.zip";
+        }
+        return name;
+    }
+    
+    // Null when the optimizer is off, packs are then served exactly as they are on disk
+    private PackOptimizer createPackOptimizer() {
+        if (!getConfig().getBoolean("optimizer.enabled", false)) {
+            return null;
+        }
+        return new PackOptimizer(new File(getDataFolder(), "optimized"), getLogger(),
+                getConfig().getBoolean("optimizer.minify_json", true),
+                getConfig().getBoolean("optimizer.recompress_png", true),
+                getConfig().getStringList("optimizer.strip_patterns"));
+    }
+    
+    // Safe to call off the main thread, touches neither the config nor Bukkit
+    private PackRegistry buildRegistry(List<String> packNames, Map<String, List<String>> worldPackNames, String mergedPackName, PackOptimizer optimizer, String packBaseUrl,
+                                       int hashThreads, boolean contentAddressed, boolean forcePack, boolean autoApplyAllWorlds) throws InterruptedException {
+        // Each distinct file is hashed once, however many slots and profiles use it
+        Map<String, String> packLabels = new LinkedHashMap<>();
+        for (int i = 0; i < packNames.size(); i++) {
+            if (!packNames.get(i).isEmpty()) {
+                packLabels.putIfAbsent(packNames.get(i), "resource pack " + (i + 1));
+            }
+        }
+        for (Map.Entry<String, List<String>> entry : worldPackNames.entrySet()) {
+            for (String packName : entry.getValue()) {
+                if (!packName.isEmpty()) {
+                    packLabels.putIfAbsent(packName, "resource pack for world " + entry.getKey());
+                }
+            }
+        }
+        Map<String, ResourcePackInfo> loadedPacks = loadResourcePacks(packLabels, optimizer, packBaseUrl, hashThreads, contentAddressed);
+        
+        Map<String, List<ResourcePackInfo>> worldPacks = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> entry : worldPackNames.entrySet()) {
+            worldPacks.put(entry.getKey(), resolvePacks(entry.getValue(), loadedPacks));
+        }
+        
+        List<ResourcePackInfo> defaultPacks = resolvePacks(packNames, loadedPacks);
+        // Clients that take several packs keep getting them separately, the merged copy is
+        // only the fallback for those that hold one pack at a time
+        ResourcePackInfo mergedPack = null;
+        if (mergedPackName != null && defaultPacks.size() > 1) {
+            try {
+                File mergedFile = packMerger.merge(defaultPacks);
+                mergedPack = loadSinglePack(mergedPackName, mergedFile, "merged resource pack", optimizer, packBaseUrl, contentAddressed);
+            } catch (IOException e) {
+                getLogger().log(Level.SEVERE, "Failed to merge resource packs, sending them separately to every client", e);
+            }
+        }
+        try {
+            hashIndex.prune();
+        } catch (IOException e) {
+            getLogger().log(Level.WARNING, "Could not compact the pack hash index", e);
+        }
+        return new PackRegistry(defaultPacks, worldPacks, mergedPack, forcePack, autoApplyAllWorlds);
+    }
+    
+    private List<ResourcePackInfo> resolvePacks(List<String> packNames, Map<String, ResourcePackInfo> loadedPacks) {
+        List<ResourcePackInfo> resolved = new ArrayList<>();
+        for (String packName : packNames) {
+            ResourcePackInfo packInfo = loadedPacks.get(packName);
+            if (packInfo != null && !resolved.contains(packInfo)) {
+                resolved.add(packInfo);
+            }
+        }
+        return resolved;
+    }
+    
+    private Map<String, ResourcePackInfo> loadResourcePacks(Map<String, String> packLabels, PackOptimizer optimizer, String packBaseUrl, int hashThreads, boolean contentAddressed) throws InterruptedException {
+        long start = System.nanoTime();
         
-        String pack1 = getConfig().getString("resource_packs1", "");
-        String pack2 = getConfig().getString("resource_packs2", "");
-        String pack3 = getConfig().getString("resource_packs3", "");
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        threads = Math.max(1, Math.min(threads, packLabels.size()));
         
-        loadSinglePack(pack1, "resource pack 1");
-        loadSinglePack(pack2, "resource pack 2");
-        loadSinglePack(pack3, "resource pack 3");
+        // Hash every pack concurrently, but keep the results in configuration order
+        ExecutorService hashExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "SeniorResourcePacks-Hasher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Map<String, ResourcePackInfo> loaded = new LinkedHashMap<>();
+        try {
+            List<Future<ResourcePackInfo>> results = new ArrayList<>();
+            for (Map.Entry<String, String> entry : packLabels.entrySet()) {
+                String packName = entry.getKey();
+                String packLabel = entry.getValue();
+                results.add(hashExecutor.submit(() -> loadSinglePack(packName, new File(packsFolder, packName), packLabel, optimizer, packBaseUrl, contentAddressed)));
+            }
+            for (Future<ResourcePackInfo> result : results) {
+                try {
+                    ResourcePackInfo packInfo = result.get();
+                    if (packInfo != null) {
+                        loaded.put(packInfo.filename, packInfo);
+                    }
+                } catch (ExecutionException e) {
+                    // loadSinglePack logs its own failures, this only catches the unexpected
+                    getLogger().log(Level.SEVERE, "Failed to load resource pack", e.getCause());
+                }
+            }
+        } finally {
+            hashExecutor.shutdownNow();
+        }
         
-        getLogger().info("Total resource packs loaded: " + resourcePacks.size());
+        getLogger().info("Loaded " + loaded.size() + " resource pack(s) in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                + " ms using " + threads + " hashing thread(s)");
+        return loaded;
     }
     
-    private void loadSinglePack(String packName, String packLabel) {
+    private ResourcePackInfo loadSinglePack(String packName, File packFile, String packLabel, PackOptimizer optimizer, String packBaseUrl, boolean contentAddressed) {
         if (!packName.isEmpty()) {
-            File packFile = new File(packsFolder, packName);
             if (packFile.exists()) {
                 try {
-                    String url = baseUrl + packName;
-                    byte[] hash = generateHash(packFile);
-                    ResourcePackInfo packInfo = new ResourcePackInfo(packName, url, hash, packFile);
-                    resourcePacks.add(packInfo);
-                    getLogger().info("Loaded " + packLabel + ": " + packName + " (Size: " + packFile.length() + " bytes)");
+                    long start = System.nanoTime();
+                    
+                    // The optimized copy is what players download, so that is the file that gets hashed
+                    File servedFile = packFile;
+                    if (optimizer != null) {
+                        try {
+                            File optimizedFile = optimizer.optimize(packName, packFile, hashPackFile(packFile));
+                            // Already well-packed packs can come out larger, keep whichever is smaller
+                            if (optimizedFile.length() < packFile.length()) {
+                                servedFile = optimizedFile;
+                            }
+                        } catch (IOException e) {
+                            getLogger().log(Level.WARNING, "Could not optimize " + packName + ", serving it unmodified", e);
+                        }
+                    }
+                    
+                    boolean cached = hashIndex.lookup(servedFile) != null;
+                    byte[] hash = hashPackFile(servedFile);
+                    // Content-addressed URLs change whenever the pack does, so they can be cached forever
+                    String url = contentAddressed
+                            ? packBaseUrl + PackDownloadHandler.CONTENT_ADDRESSED_PREFIX.substring(1) + PackHasher.toHex(hash) + "/" + packName
+                            : packBaseUrl + packName;
+                    ResourcePackInfo packInfo = new ResourcePackInfo(packName, url, hash, servedFile, packFile.length());
+                    getLogger().info("Loaded " + packLabel + ": " + packName + " (" + describePackSize(packInfo) + ", "
+                            + (cached ? "cached hash" : "hashed") + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms)");
+                    return packInfo;
                 } catch (Exception e) {
                     getLogger().log(Level.SEVERE, "Failed to load " + packLabel + ": " + packName, e);
                 }
@@ -775,32 +815,74 @@ public class SeniorResourcePacks extends JavaPlugin implements Listener {
                 getLogger().warning(packLabel + " not found: " + packName);
             }
         }
+        return null;
+    }
+    
+    // Uses the hash index when the file is unchanged, otherwise hashes it and records the result
+    private byte[] hashPackFile(File file) throws Exception {
+        byte[] hash = hashIndex.lookup(file);
+        if (hash != null) {
+            return hash;
+        }
+        // Size and time are read before hashing and checked again after, so a pack that is
+        // still being uploaded never has a partial hash recorded under its final size and time
+        for (int attempt = 0; attempt < 3; attempt++) {
+            long size = file.length();
+            long lastModified = file.lastModified();
+            hash = generateHash(file);
+            if (file.length() == size && file.lastModified() == lastModified) {
+                try {
+                    hashIndex.put(file, size, lastModified, hash);
+                } catch (IOException e) {
+                    getLogger().log(Level.WARNING, "Could not update pack hash index for " + file.getName(), e);
+                }
+                return hash;
+            }
+        }
+        throw new IOException(file.getName() + " kept changing while it was being hashed");
     }
     
     private byte[] generateHash(File file) throws Exception {
-        MessageDigest md = MessageDigest.getInstance("SHA-1");
-        byte[] fileData = Files.readAllBytes(file.toPath());
-        return md.digest(fileData);
+        return PackHasher.sha1(file);
+    }
+    
+    private String describePackSize(ResourcePackInfo pack) {
+        long size = pack.file.length();
+        if (size == pack.sourceSize) {
+            return "Size: " + size + " bytes";
+        }
+        long saved = pack.sourceSize > 0 ? Math.round(100.0 * (pack.sourceSize - size) / pack.sourceSize) : 0;
+        return "Size: " + size + " bytes, optimized from " + pack.sourceSize + " bytes (-" + saved + "%)";
     }
     
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
         
-        // Apply resource packs with a delay to ensure player is fully loaded
-        if (getConfig().getBoolean("auto_apply_all_worlds", true)) {
+        // Queue resource packs with a delay to ensure player is fully loaded
+        if (registry.get().isAutoApplyAllWorlds()) {
             Bukkit.getScheduler().runTaskLater(this, () -> {
-                applyResourcePacks(player);
+                queueResourcePacks(player);
             }, 60L); // 3 second delay for better stability
         }
     }
     
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        dispatchQueue.remove(event.getPlayer().getUniqueId());
+        packTracker.forget(event.getPlayer().getUniqueId());
+        deliveryTimeline.forget(event.getPlayer().getUniqueId());
+    }
+    
     @EventHandler
     public void onPlayerChangeWorld(PlayerChangedWorldEvent event) {
-        if (getConfig().getBoolean("auto_apply_all_worlds", true)) {
+        // With world profiles the target pack set can differ per world, so always re-check;
+        // queueResourcePacks only touches the player's packs if the set or its order changed
+        PackRegistry packs = registry.get();
+        if (packs.isAutoApplyAllWorlds() || packs.hasWorldProfiles()) {
             Player player = event.getPlayer();
             Bukkit.getScheduler().runTaskLater(this, () -> {
-                applyResourcePacks(player);
+                queueResourcePacks(player);
             }, 20L); // 1 second delay
         }
     }
@@ -808,17 +890,47 @@ public class SeniorResourcePacks extends JavaPlugin implements Listener {
     @EventHandler
     public void onResourcePackStatus(PlayerResourcePackStatusEvent event) {
         Player player = event.getPlayer();
+        UUID playerId = player.getUniqueId();
+        PlayerResourcePackStatusEvent.Status status = event.getStatus();
+        metrics.recordPackStatus(status.name());
+        PlayerPackTracker.PackDelivery delivery = packTracker.getDelivery(playerId, event.getID());
+        String packName = delivery != null ? delivery.pack.filename : String.valueOf(event.getID());
+        
+        // Anything past ACCEPTED/DOWNLOADED is final for that pack, except DISCARDED: it only
+        // reports the old copy a re-send replaced, never the delivery now tracked under that id
+        boolean settled = PlayerPackTracker.isFinal(status);
+        if (delivery != null && status != PlayerResourcePackStatusEvent.Status.DISCARDED) {
+            deliveryTimeline.recordStatus(playerId, packName, status.name(), settled,
+                    status == PlayerResourcePackStatusEvent.Status.SUCCESSFULLY_LOADED);
+        }
+        if (settled) {
+            boolean settledNow = packTracker.recordStatus(playerId, event.getID(), status);
+            
+            // The download slot is freed once every pack sent to the player has settled
+            if (packTracker.isSettled(playerId)) {
+                dispatchQueue.release(playerId);
+                if (settledNow && packTracker.isFullyLoaded(playerId)) {
+                    String successMsg = getConfig().getString("messages.resource_pack_applied", "&aResource pack has been applied successfully!");
+                    player.sendMessage(ChatColor.translateAlternateColorCodes('&', successMsg));
+                    if (logsPlayerEvents()) {
+                        getLogger().info("All resource packs successfully applied for player: " + player.getName());
+                    }
+                }
+            }
+        }
         
-        switch (event.getStatus()) {
+        switch (status) {
             case SUCCESSFULLY_LOADED:
-                String successMsg = getConfig().getString("messages.resource_pack_applied", "&aResource pack has been applied successfully!");
-                player.sendMessage(ChatColor.translateAlternateColorCodes('&', successMsg));
-                getLogger().info("Resource pack successfully applied for player: " + player.getName());
+                if (logsVerbose()) {
+                    getLogger().info("Resource pack '" + packName + "' successfully applied for player: " + player.getName());
+                }
                 break;
                 
             case DECLINED:
-                getLogger().info("Player " + player.getName() + " declined the resource pack");
-                if (!getConfig().getBoolean("force_pack", false)) {
+                if (logsPlayerEvents()) {
+                    getLogger().info("Player " + player.getName() + " declined the resource pack '" + packName + "'");
+                }
+                if (!registry.get().isForcePack()) {
                     player.sendMessage(ChatColor.YELLOW + "You can apply the resource pack later with /rp apply");
                 }
                 break;
@@ -826,49 +938,140 @@ public class SeniorResourcePacks extends JavaPlugin implements Listener {
             case FAILED_DOWNLOAD:
                 String failedMsg = getConfig().getString("messages.resource_pack_failed", "&cFailed to download resource pack! Check your connection.");
                 player.sendMessage(ChatColor.translateAlternateColorCodes('&', failedMsg));
-                getLogger().warning("Resource pack download failed for player: " + player.getName());
+                getLogger().warning("Resource pack '" + packName + "' download failed for player: " + player.getName());
                 break;
                 
             case ACCEPTED:
-                getLogger().info("Player " + player.getName() + " accepted the resource pack");
+                if (logsVerbose()) {
+                    getLogger().info("Player " + player.getName() + " accepted the resource pack '" + packName + "'");
+                }
                 player.sendMessage(ChatColor.GREEN + "Downloading resource pack...");
                 break;
                 
             default:
-                getLogger().info("Resource pack status for " + player.getName() + ": " + event.getStatus());
+                if (logsVerbose()) {
+                    getLogger().info("Resource pack '" + packName + "' status for " + player.getName() + ": " + status);
+                }
                 break;
         }
     }
     
+    // Players with the priority permission jump ahead of everyone else in the queue.
+    // Returns false when the player already has every pack and nothing was queued.
+    private boolean queueResourcePacks(Player player) {
+        PackRegistry packs = registry.get();
+        List<ResourcePackInfo> targetPacks = targetPacksFor(player, packs);
+        if (!needsResourcePackUpdate(player, packs)) {
+            // Counted per pack, like the skips inside applyResourcePacks
+            suppressedSends.add(targetPacks.size());
+            return false;
+        }
+        // Removing needs no download slot, so packs of the previous world go right away
+        UUID playerId = player.getUniqueId();
+        if (removeDivergedPacks(player, targetPacks) == targetPacks.size()) {
+            if (packTracker.isSettled(playerId)) {
+                dispatchQueue.release(playerId);
+            }
+            return true;
+        }
+        dispatchQueue.enqueue(playerId, player.hasPermission("seniorresourcepacks.priority") ? 1 : 0);
+        return true;
+    }
+    
+    // The packs the player should hold, in stacking order
+    private List<ResourcePackInfo> targetPacksFor(Player player, PackRegistry packs) {
+        return packs.getPacksFor(player.getWorld().getName(), singlePackClients.takesSinglePack(player.getUniqueId()));
+    }
+    
+    // True if the player's packs differ from the effective set in content or stacking order
+    private boolean needsResourcePackUpdate(Player player, PackRegistry packs) {
+        UUID playerId = player.getUniqueId();
+        List<ResourcePackInfo> targetPacks = targetPacksFor(player, packs);
+        int current = packTracker.currentPrefix(playerId, targetPacks);
+        return current < targetPacks.size() || current < packTracker.getSentPackIds(playerId).size();
+    }
+    
+    private void dispatchResourcePacks(UUID playerId) {
+        Player player = Bukkit.getPlayer(playerId);
+        if (player == null || !player.isOnline()) {
+            dispatchQueue.remove(playerId);
+            return;
+        }
+        applyResourcePacks(player);
+    }
+    
+    /**
+     * The client stacks packs in the order they were sent, so only the bottom packs that
+     * still match the target set in order and version can stay. Everything above them,
+     * including packs that are not part of the set, is removed. Returns how many target
+     * packs the player still holds; the rest have to be sent again, in order.
+     */
+    private int removeDivergedPacks(Player player, List<ResourcePackInfo> targetPacks) {
+        UUID playerId = player.getUniqueId();
+        int current = packTracker.currentPrefix(playerId, targetPacks);
+        List<UUID> sentPackIds = new ArrayList<>(packTracker.getSentPackIds(playerId));
+        for (UUID sentPackId : sentPackIds.subList(current, sentPackIds.size())) {
+            player.removeResourcePack(sentPackId);
+            packTracker.markRemoved(playerId, sentPackId);
+        }
+        return current;
+    }
+    
     private void applyResourcePacks(Player player) {
-        if (resourcePacks.isEmpty()) {
-            getLogger().info("No resource packs configured for player: " + player.getName());
+        PackRegistry packs = registry.get();
+        UUID playerId = player.getUniqueId();
+        List<ResourcePackInfo> targetPacks = targetPacksFor(player, packs);
+        
+        int current = removeDivergedPacks(player, targetPacks);
+        
+        if (targetPacks.isEmpty()) {
+            if (logsVerbose()) {
+                getLogger().info("No resource packs configured for player: " + player.getName());
+            }
+            dispatchQueue.release(playerId);
             return;
         }
         
-        boolean forcePack = getConfig().getBoolean("force_pack", false);
+        suppressedSends.add(current);
+        List<ResourcePackInfo> toSend = targetPacks.subList(current, targetPacks.size());
+        if (toSend.isEmpty()) {
+            if (packTracker.isSettled(playerId)) {
+                dispatchQueue.release(playerId);
+            }
+            return;
+        }
         
-        // Apply the first resource pack (most stable approach)
-        ResourcePackInfo packInfo = resourcePacks.get(0);
-        try {
-            if (forcePack) {
-                player.setResourcePack(packInfo.url, packInfo.hash, true);
-                getLogger().info("Forced resource pack '" + packInfo.filename + "' to player: " + player.getName());
-            } else {
-                String promptMsg = getConfig().getString("messages.pack_prompt", "&eServer resource pack available! Click &a[Accept] &7to download or &c[Decline] &7to skip.");
-                if (!promptMsg.isEmpty()) {
-                    player.sendMessage(ChatColor.translateAlternateColorCodes('&', promptMsg));
+        boolean forcePack = packs.isForcePack();
+        if (!forcePack) {
+            String promptMsg = getConfig().getString("messages.pack_prompt", "&eServer resource pack available! Click &a[Accept] &7to download or &c[Decline] &7to skip.");
+            if (!promptMsg.isEmpty()) {
+                player.sendMessage(ChatColor.translateAlternateColorCodes('&', promptMsg));
+            }
+        }
+        
+        // Every configured pack is stacked in slot order, so later slots override earlier ones
+        // and each pack is cached and re-downloaded by the client on its own
+        for (ResourcePackInfo packInfo : toSend) {
+            try {
+                player.addResourcePack(packInfo.id, packInfo.url, packInfo.hash, null, forcePack);
+                packTracker.markSent(playerId, packInfo);
+                deliveryTimeline.recordSent(playerId, player.getName(),
+                        player.getAddress() != null ? player.getAddress().getAddress() : null, packInfo.filename);
+                if (logsVerbose()) {
+                    getLogger().info((forcePack ? "Forced" : "Offered") + " resource pack '" + packInfo.filename + "' to player: " + player.getName()
+                            + " (" + packInfo.url + ")");
                 }
-                player.setResourcePack(packInfo.url, packInfo.hash, false);
-                getLogger().info("Offered resource pack '" + packInfo.filename + "' to player: " + player.getName());
+                
+            } catch (Exception e) {
+                String failedMsg = getConfig().getString("messages.resource_pack_failed", "&cFailed to apply resource pack!");
+                player.sendMessage(ChatColor.translateAlternateColorCodes('&', failedMsg));
+                getLogger().log(Level.SEVERE, "Failed to apply resource pack: " + packInfo.filename, e);
             }
-            
-            getLogger().info("Resource pack URL: " + packInfo.url);
-            
-        } catch (Exception e) {
-            String failedMsg = getConfig().getString("messages.resource_pack_failed", "&cFailed to apply resource pack!");
-            player.sendMessage(ChatColor.translateAlternateColorCodes('&', failedMsg));
-            getLogger().log(Level.SEVERE, "Failed to apply resource pack: " + packInfo.filename, e);
+        }
+        
+        if (packTracker.isSettled(playerId)) {
+            // Nothing is pending (every send failed), so do not hold a download slot
+            dispatchQueue.release(playerId);
         }
     }
     
@@ -883,19 +1086,26 @@ public class SeniorResourcePacks extends JavaPlugin implements Listener {
                         return true;
                     }
                     
-                    reloadConfig();
-                    loadResourcePacks();
-                    
-                    String reloadedMsg = getConfig().getString("messages.config_reloaded", "&aConfiguration reloaded successfully!");
-                    sender.sendMessage(ChatColor.translateAlternateColorCodes('&', reloadedMsg));
-                    
-                    getLogger().info("Configuration reloaded by " + sender.getName());
+                    sender.sendMessage(ChatColor.YELLOW + "Reloading resource packs...");
+                    reloadResourcePacksAsync().whenComplete((loaded, error) -> {
+                        // Completion always happens on the main thread
+                        if (error != null) {
+                            sender.sendMessage(ChatColor.RED + "Failed to reload resource packs: " + error.getMessage());
+                            return;
+                        }
+                        String reloadedMsg = getConfig().getString("messages.config_reloaded", "&aConfiguration reloaded successfully!");
+                        sender.sendMessage(ChatColor.translateAlternateColorCodes('&', reloadedMsg));
+                        getLogger().info("Configuration reloaded by " + sender.getName());
+                    });
                     return true;
                     
                 } else if (args[0].equalsIgnoreCase("apply")) {
                     if (sender instanceof Player) {
-                        applyResourcePacks((Player) sender);
-                        sender.sendMessage(ChatColor.GREEN + "Applying resource pack...");
+                        if (queueResourcePacks((Player) sender)) {
+                            sender.sendMessage(ChatColor.GREEN + "Applying resource pack...");
+                        } else {
+                            sender.sendMessage(ChatColor.GREEN + "Your resource packs are already up to date.");
+                        }
                     } else {
                         sender.sendMessage(ChatColor.RED + "Only players can use this command!");
                     }
@@ -909,11 +1119,22 @@ public class SeniorResourcePacks extends JavaPlugin implements Listener {
                     }
                     
                     sender.sendMessage(ChatColor.YELLOW + "=== Loaded Resource Packs ===");
-                    if (resourcePacks.isEmpty()) {
+                    PackRegistry packs = registry.get();
+                    if (packs.isEmpty()) {
                         sender.sendMessage(ChatColor.RED + "No resource packs loaded!");
                     } else {
-                        for (ResourcePackInfo pack : resourcePacks) {
-                            sender.sendMessage(ChatColor.GREEN + "- " + pack.filename + " (" + pack.file.length() + " bytes)");
+                        for (ResourcePackInfo pack : packs.getDefaultPacks()) {
+                            sender.sendMessage(ChatColor.GREEN + "- " + pack.filename + " (" + describePackSize(pack) + ")");
+                        }
+                        ResourcePackInfo mergedPack = packs.getMergedPack();
+                        if (mergedPack != null) {
+                            sender.sendMessage(ChatColor.YELLOW + "Single-pack clients: " + ChatColor.GREEN + mergedPack.filename + " (" + describePackSize(mergedPack) + ")");
+                        }
+                        for (Map.Entry<String, List<ResourcePackInfo>> entry : packs.getWorldPacks().entrySet()) {
+                            sender.sendMessage(ChatColor.YELLOW + "World " + entry.getKey() + ":");
+                            for (ResourcePackInfo pack : entry.getValue()) {
+                                sender.sendMessage(ChatColor.GREEN + "  - " + pack.filename + " (" + describePackSize(pack) + ")");
+                            }
                         }
                     }
                     return true;
@@ -928,10 +1149,59 @@ public class SeniorResourcePacks extends JavaPlugin implements Listener {
                     sender.sendMessage(ChatColor.YELLOW + "=== Senior Resource Packs Info ===");
                     sender.sendMessage(ChatColor.GREEN + "HTTP Server: " + (serverRunning ? "Running" : "Stopped"));
                     sender.sendMessage(ChatColor.GREEN + "Base URL: " + baseUrl);
-                    sender.sendMessage(ChatColor.GREEN + "Loaded Packs: " + resourcePacks.size());
-                    sender.sendMessage(ChatColor.GREEN + "Force Pack: " + getConfig().getBoolean("force_pack", false));
-                    sender.sendMessage(ChatColor.GREEN + "Auto Apply: " + getConfig().getBoolean("auto_apply_all_worlds", true));
+                    PackRegistry packs = registry.get();
+                    sender.sendMessage(ChatColor.GREEN + "Loaded Packs: " + packs.size());
+                    sender.sendMessage(ChatColor.GREEN + "Force Pack: " + packs.isForcePack());
+                    sender.sendMessage(ChatColor.GREEN + "Auto Apply: " + packs.isAutoApplyAllWorlds());
                     sender.sendMessage(ChatColor.GREEN + "Pack Folder: " + packsFolder.getAbsolutePath());
+                    sender.sendMessage(ChatColor.GREEN + "Pack Egress: " + DashboardRenderer.formatFileSize(bandwidthLimiter.getMeasuredBytesPerSecond()) + "/s"
+                            + " (global limit " + formatRate(bandwidthLimiter.getGlobalLimit())
+                            + ", per connection " + formatRate(bandwidthLimiter.getPerConnectionLimit()) + ")");
+                    sender.sendMessage(ChatColor.GREEN + "Total Served: " + DashboardRenderer.formatFileSize(bandwidthLimiter.getTotalBytesSent()));
+                    sender.sendMessage(ChatColor.GREEN + "Dispatch Queue: " + dispatchQueue.getQueueDepth() + " waiting, "
+                            + dispatchQueue.getInFlightCount() + "/" + dispatchQueue.getMaxInFlight() + " downloading, average wait "
+                            + dispatchQueue.getAverageWaitMillis() + " ms");
+                    sender.sendMessage(ChatColor.GREEN + "Redundant Sends Skipped: " + suppressedSends.sum());
+                    return true;
+                    
+                } else if (args[0].equalsIgnoreCase("stats")) {
+                    if (!sender.hasPermission("seniorresourcepacks.admin")) {
+                        String noPermMsg = getConfig().getString("messages.no_permission", "&cYou don't have permission to use this command!");
+                        sender.sendMessage(ChatColor.translateAlternateColorCodes('&', noPermMsg));
+                        return true;
+                    }
+                    
+                    if (args.length > 1) {
+                        Player target = Bukkit.getPlayerExact(args[1]);
+                        if (target == null) {
+                            sender.sendMessage(ChatColor.RED + "Player not found: " + args[1]);
+                            return true;
+                        }
+                        sender.sendMessage(ChatColor.YELLOW + "=== Pack Delivery for " + target.getName() + " ===");
+                        if (deliveryTimeline.getDeliveries(target.getUniqueId()).isEmpty()) {
+                            sender.sendMessage(ChatColor.RED + "No resource packs sent to this player yet.");
+                        }
+                        for (DeliveryTimeline.Delivery delivery : deliveryTimeline.getDeliveries(target.getUniqueId())) {
+                            sender.sendMessage(ChatColor.GREEN + "- " + delivery.packName + ": sent, "
+                                    + (delivery.downloadStartedAt != 0 ? "download started +" + (delivery.downloadStartedAt - delivery.sentAt) + " ms, " : "no download yet, ")
+                                    + (delivery.downloadFinishedAt != 0 ? "finished +" + (delivery.downloadFinishedAt - delivery.sentAt) + " ms, " : "")
+                                    + (delivery.status != null ? delivery.status : "waiting")
+                                    + (delivery.settledAt != 0 ? " +" + (delivery.settledAt - delivery.sentAt) + " ms" : ""));
+                        }
+                        return true;
+                    }
+                    
+                    sender.sendMessage(ChatColor.YELLOW + "=== Pack Delivery Latency (p50 / p95 / p99) ===");
+                    List<DeliveryTimeline.PackStats> deliveryStats = deliveryTimeline.getStats();
+                    if (deliveryStats.isEmpty()) {
+                        sender.sendMessage(ChatColor.RED + "No completed deliveries yet.");
+                    }
+                    for (DeliveryTimeline.PackStats stats : deliveryStats) {
+                        sender.sendMessage(ChatColor.GREEN + stats.packName + ": " + stats.deliveries + " deliveries, " + stats.loaded + " loaded");
+                        sender.sendMessage(ChatColor.GRAY + "  prompt to download: " + DashboardRenderer.formatPercentiles(stats.promptToDownload));
+                        sender.sendMessage(ChatColor.GRAY + "  download: " + DashboardRenderer.formatPercentiles(stats.download));
+                        sender.sendMessage(ChatColor.GRAY + "  total: " + DashboardRenderer.formatPercentiles(stats.total));
+                    }
                     return true;
                     
                 } else if (args[0].equalsIgnoreCase("applyall")) {
@@ -942,10 +1212,14 @@ public class SeniorResourcePacks extends JavaPlugin implements Listener {
                     }
                     
                     sender.sendMessage(ChatColor.GREEN + "Applying resource packs to all online players...");
+                    int queued = 0;
                     for (Player player : Bukkit.getOnlinePlayers()) {
-                        applyResourcePacks(player);
+                        if (queueResourcePacks(player)) {
+                            queued++;
+                        }
                     }
-                    sender.sendMessage(ChatColor.GREEN + "Resource packs sent to " + Bukkit.getOnlinePlayers().size() + " players!");
+                    sender.sendMessage(ChatColor.GREEN + "Resource packs queued for " + queued + " players ("
+                            + (Bukkit.getOnlinePlayers().size() - queued) + " already up to date)!");
                     return true;
                 }
             }
@@ -957,6 +1231,7 @@ public class SeniorResourcePacks extends JavaPlugin implements Listener {
                 sender.sendMessage(ChatColor.GREEN + "/rp reload - Reload configuration");
                 sender.sendMessage(ChatColor.GREEN + "/rp list - List loaded resource packs");
                 sender.sendMessage(ChatColor.GREEN + "/rp info - Show plugin information");
+                sender.sendMessage(ChatColor.GREEN + "/rp stats [player] - Show pack delivery timings");
                 sender.sendMessage(ChatColor.GREEN + "/rp applyall - Apply to all online players");
             }
             return true;
@@ -0,0 +1,43 @@
+package com.seniorresourcepacks;
+
+/**
+ * Minimal field lookup for the small flat JSON bodies the dashboard posts.
+ * Not a general JSON parser: nested objects, escapes and arrays are not handled.
+ */
+final class SimpleJson {
+    
+    private SimpleJson() {
+    }
+    
+    static String extractValue(String json, String key) {
+        String searchKey = "\"" + key + "\":";
+        int startIndex = json.indexOf(searchKey);
+        if (startIndex == -1) return "";
+        
+        startIndex += searchKey.length();
+        while (startIndex < json.length() && Character.isWhitespace(json.charAt(startIndex))) startIndex++;
+        
+        if (startIndex >= json.length()) return "";
+        
+        char startChar = json.charAt(startIndex);
+        if (startChar == '"') {
+            startIndex++;
+            int endIndex = json.indexOf('"', startIndex);
+            return endIndex == -1 ? "" : json.substring(startIndex, endIndex);
+        } else if (startChar == 't' || startChar == 'f') {
+            int endIndex = startIndex;
+            while (endIndex < json.length() && (Character.isLetter(json.charAt(endIndex)) || Character.isDigit(json.charAt(endIndex)))) {
+                endIndex++;
+            }
+            return json.substring(startIndex, endIndex);
+        } else if (Character.isDigit(startChar)) {
+            int endIndex = startIndex;
+            while (endIndex < json.length() && (Character.isDigit(json.charAt(endIndex)) || json.charAt(endIndex) == '.')) {
+                endIndex++;
+            }
+            return json.substring(startIndex, endIndex);
+        }
+        
+        return "";
+    }
+}
@@ -0,0 +1,56 @@
+package com.seniorresourcepacks;
+
+import java.lang.reflect.Method;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Tells which players are on a client older than 1.20.3, which holds only one server
+ * resource pack at a time. Those clients can only join through ViaVersion, so it is asked
+ * for the client version when installed; without it every player takes multiple packs.
+ */
+final class SinglePackClients {
+    
+    // 1.20.3, the first protocol version with the multi-pack API
+    private static final int MULTI_PACK_PROTOCOL = 765;
+    
+    static final SinglePackClients NONE = new SinglePackClients(null, null, null);
+    
+    private final Object viaApi;
+    private final Method getPlayerVersion;
+    private final Logger logger;
+    
+    private SinglePackClients(Object viaApi, Method getPlayerVersion, Logger logger) {
+        this.viaApi = viaApi;
+        this.getPlayerVersion = getPlayerVersion;
+        this.logger = logger;
+    }
+    
+    // Looked up by reflection so ViaVersion stays an optional soft dependency
+    static SinglePackClients viaVersion(Logger logger) {
+        try {
+            Class<?> via = Class.forName("com.viaversion.viaversion.api.Via");
+            Method getApi = via.getMethod("getAPI");
+            Method getPlayerVersion = getApi.getReturnType().getMethod("getPlayerVersion", UUID.class);
+            return new SinglePackClients(getApi.invoke(null), getPlayerVersion, logger);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            logger.log(Level.WARNING, "Could not hook into ViaVersion, every client gets the separate packs", e);
+            return NONE;
+        }
+    }
+    
+    boolean takesSinglePack(UUID playerId) {
+        if (viaApi == null) {
+            return false;
+        }
+        try {
+            int protocol = (int) getPlayerVersion.invoke(viaApi, playerId);
+            // Unknown (-1) while the player is still connecting, assume a current client
+            return protocol > 0 && protocol < MULTI_PACK_PROTOCOL;
+        } catch (ReflectiveOperationException e) {
+            logger.log(Level.FINE, "Could not read the client version of " + playerId, e);
+            return false;
+        }
+    }
+}
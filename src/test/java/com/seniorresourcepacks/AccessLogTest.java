@@ -0,0 +1,133 @@
+package com.seniorresourcepacks;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The lock-free access log ring and its rotating writer.
+ */
+class AccessLogTest {
+    
+    private static final long MAX_FILE_BYTES = 64 * 1024;
+    
+    @TempDir
+    Path folder;
+    
+    @Test
+    void everyRecordIsWrittenOnceOrCountedAsDropped() throws Exception {
+        File file = folder.resolve("access.log").toFile();
+        // A small ring so a burst from several threads can overrun it
+        AccessLog log = new AccessLog(file, 64, MAX_FILE_BYTES, 500, quietLogger());
+        log.start();
+        
+        int producers = 8;
+        int perProducer = 5_000;
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    log.record("127.0.0.1", "GET", "/p" + producer + "/" + i + "/\"quoted\"", 200, i, 1_000_000);
+                    // Short pauses let the writer keep up often enough to fill and rotate files
+                    if (i % 16 == 15) {
+                        try {
+                            Thread.sleep(1);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        go.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        log.close();
+        
+        // Oldest rotation first, the live file last
+        List<File> files = new ArrayList<>();
+        for (int i = 500; i >= 1; i--) {
+            File rotated = new File(file.getPath() + "." + i);
+            if (rotated.isFile()) {
+                files.add(rotated);
+            }
+        }
+        files.add(file);
+        assertTrue(files.size() > 1, "Expected the log to rotate");
+        
+        Set<String> seen = new HashSet<>();
+        int[] lastIndex = new int[producers];
+        Arrays.fill(lastIndex, -1);
+        for (File logFile : files) {
+            if (logFile != file) {
+                assertTrue(logFile.length() <= MAX_FILE_BYTES, logFile.getName() + " is over the size limit");
+                assertTrue(logFile.length() > MAX_FILE_BYTES - 1024, logFile.getName() + " rotated early");
+            }
+            for (String line : Files.readAllLines(logFile.toPath(), StandardCharsets.UTF_8)) {
+                // A torn or interleaved line does not parse
+                JsonObject entry = JsonParser.parseString(line).getAsJsonObject();
+                String path = entry.get("path").getAsString();
+                assertTrue(seen.add(path), "Written twice: " + path);
+                String[] parts = path.split("/");
+                int producer = Integer.parseInt(parts[1].substring(1));
+                int index = Integer.parseInt(parts[2]);
+                assertEquals(index, entry.get("bytes").getAsLong());
+                // Each thread's records keep the order it made them in
+                assertTrue(index > lastIndex[producer], path + " out of order");
+                lastIndex[producer] = index;
+            }
+        }
+        assertEquals(producers * perProducer, seen.size() + log.getDroppedCount());
+    }
+    
+    @Test
+    void fullRingDropsInsteadOfBlocking() throws IOException {
+        File file = folder.resolve("access.log").toFile();
+        AccessLog log = new AccessLog(file, 8, MAX_FILE_BYTES, 2, quietLogger());
+        // Nothing drains before start, so only the first eight fit
+        for (int i = 0; i < 20; i++) {
+            log.record("127.0.0.1", "GET", "/" + i, 200, 0, 0);
+        }
+        assertEquals(12, log.getDroppedCount());
+        
+        log.start();
+        log.close();
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals(8, lines.size());
+        for (int i = 0; i < 8; i++) {
+            assertEquals("/" + i, JsonParser.parseString(lines.get(i)).getAsJsonObject().get("path").getAsString());
+        }
+    }
+    
+    private static Logger quietLogger() {
+        Logger logger = Logger.getLogger("SeniorResourcePacks-Test-" + System.nanoTime());
+        logger.setUseParentHandlers(false);
+        return logger;
+    }
+}
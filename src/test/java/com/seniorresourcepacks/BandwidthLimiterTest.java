@@ -0,0 +1,30 @@
+package com.seniorresourcepacks;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Token accounting of the download throttle.
+ */
+class BandwidthLimiterTest {
+    
+    @Test
+    void tokensReleasedAfterAShortWriteCanBeUsedAgain() throws Exception {
+        BandwidthLimiter limiter = new BandwidthLimiter();
+        limiter.configure(BandwidthLimiter.CHUNK_SIZE, 0, 0, 0);
+        BandwidthLimiter.Throttle throttle = limiter.newThrottle();
+        // Let the global bucket fill up to its one second of tokens
+        Thread.sleep(1100);
+        
+        long granted = throttle.acquire(BandwidthLimiter.CHUNK_SIZE);
+        assertTrue(granted > BandwidthLimiter.CHUNK_SIZE * 0.9, "Granted " + granted);
+        
+        // Nothing of it was written, so all of it is available again right away
+        throttle.release(granted);
+        long start = System.nanoTime();
+        long regranted = throttle.acquire(BandwidthLimiter.CHUNK_SIZE);
+        assertTrue(regranted > BandwidthLimiter.CHUNK_SIZE * 0.9, "Granted " + regranted + " after the release");
+        assertTrue(System.nanoTime() - start < 100_000_000L);
+    }
+}
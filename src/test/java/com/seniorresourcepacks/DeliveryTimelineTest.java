@@ -0,0 +1,145 @@
+package com.seniorresourcepacks;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Delivery matching and the nearest-rank percentiles of the delivery timeline.
+ */
+class DeliveryTimelineTest {
+    
+    private long now = 1_000_000;
+    private final DeliveryTimeline timeline = new DeliveryTimeline(() -> now);
+    
+    @Test
+    void nearestRankPercentiles() {
+        // Totals of 1 to 100 ms
+        for (int i = 1; i <= 100; i++) {
+            UUID player = UUID.randomUUID();
+            timeline.recordSent(player, "p" + i, null, "base.zip");
+            now += i;
+            timeline.recordStatus(player, "base.zip", "SUCCESSFULLY_LOADED", true, true);
+        }
+        
+        DeliveryTimeline.PackStats stats = single();
+        assertArrayEquals(new long[]{50, 95, 99}, stats.total);
+        assertEquals(100, stats.deliveries);
+        assertEquals(100, stats.loaded);
+        // Nobody downloaded over HTTP, so there is nothing to report for those steps
+        assertNull(stats.promptToDownload);
+        assertNull(stats.download);
+    }
+    
+    @Test
+    void smallSampleRoundsTheRankUp() {
+        long[] totals = {30, 10, 20};
+        for (long total : totals) {
+            UUID player = UUID.randomUUID();
+            timeline.recordSent(player, "p", null, "base.zip");
+            now += total;
+            timeline.recordStatus(player, "base.zip", "DECLINED", true, false);
+        }
+        
+        DeliveryTimeline.PackStats stats = single();
+        // ceil(0.5 * 3) = 2nd smallest, ceil(0.95 * 3) = ceil(0.99 * 3) = largest
+        assertArrayEquals(new long[]{20, 30, 30}, stats.total);
+        assertEquals(0, stats.loaded);
+    }
+    
+    @Test
+    void onlyTheLatestWindowOfSamplesCounts() {
+        // 1024 fast deliveries after 500 slow ones push the slow ones out
+        for (int i = 0; i < 1524; i++) {
+            UUID player = UUID.randomUUID();
+            timeline.recordSent(player, "p", null, "base.zip");
+            now += i < 500 ? 10_000 : 5;
+            timeline.recordStatus(player, "base.zip", "SUCCESSFULLY_LOADED", true, true);
+        }
+        
+        DeliveryTimeline.PackStats stats = single();
+        assertArrayEquals(new long[]{5, 5, 5}, stats.total);
+        assertEquals(1524, stats.deliveries);
+    }
+    
+    @Test
+    void downloadIsMatchedByPlayerIdAndKeepsItsStartOnResume() throws Exception {
+        UUID player = UUID.randomUUID();
+        InetAddress address = InetAddress.getByName("192.0.2.10");
+        timeline.recordSent(player, "Steve", address, "base.zip");
+        now += 100;
+        timeline.recordDownloadStarted(player, address, "base.zip");
+        now += 1_000;
+        // The connection dropped and the client resumed with a Range request
+        timeline.recordDownloadStarted(player, address, "base.zip");
+        now += 1_000;
+        timeline.recordDownloadFinished(player, address, "base.zip");
+        now += 50;
+        timeline.recordStatus(player, "base.zip", "DOWNLOADED", false, false);
+        timeline.recordStatus(player, "base.zip", "SUCCESSFULLY_LOADED", true, true);
+        // A repeated final status is not a second sample
+        now += 5_000;
+        timeline.recordStatus(player, "base.zip", "SUCCESSFULLY_LOADED", true, true);
+        
+        DeliveryTimeline.PackStats stats = single();
+        assertEquals(1, stats.deliveries);
+        assertArrayEquals(new long[]{100, 100, 100}, stats.promptToDownload);
+        assertArrayEquals(new long[]{2_000, 2_000, 2_000}, stats.download);
+        assertArrayEquals(new long[]{2_150, 2_150, 2_150}, stats.total);
+        assertEquals("SUCCESSFULLY_LOADED", timeline.getDeliveries(player).iterator().next().status);
+    }
+    
+    @Test
+    void downloadWithoutPlayerIdGoesToTheOldestUnfinishedDeliveryFromThatAddress() throws Exception {
+        InetAddress sharedAddress = InetAddress.getByName("192.0.2.20");
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID elsewhere = UUID.randomUUID();
+        timeline.recordSent(elsewhere, "Alex", InetAddress.getByName("192.0.2.30"), "base.zip");
+        now += 10;
+        timeline.recordSent(first, "First", sharedAddress, "base.zip");
+        now += 10;
+        timeline.recordSent(second, "Second", sharedAddress, "base.zip");
+        
+        now += 100;
+        timeline.recordDownloadStarted(null, sharedAddress, "base.zip");
+        timeline.recordDownloadFinished(null, sharedAddress, "base.zip");
+        // The first one is finished, so the next download from that address is the second player's
+        now += 100;
+        timeline.recordDownloadStarted(null, sharedAddress, "base.zip");
+        
+        assertEquals(now - 100, delivery(first).downloadStartedAt);
+        assertEquals(now - 100, delivery(first).downloadFinishedAt);
+        assertEquals(now, delivery(second).downloadStartedAt);
+        assertEquals(0, delivery(elsewhere).downloadStartedAt);
+        
+        // Unknown address, unknown player: nothing is touched
+        timeline.recordDownloadStarted(UUID.randomUUID(), InetAddress.getByName("192.0.2.99"), "base.zip");
+        assertEquals(0, delivery(elsewhere).downloadStartedAt);
+    }
+    
+    @Test
+    void forgottenPlayerStatusIsIgnored() {
+        UUID player = UUID.randomUUID();
+        timeline.recordSent(player, "Steve", null, "base.zip");
+        timeline.forget(player);
+        timeline.recordStatus(player, "base.zip", "SUCCESSFULLY_LOADED", true, true);
+        
+        assertTrue(timeline.getStats().isEmpty());
+        assertTrue(timeline.getDeliveries(player).isEmpty());
+    }
+    
+    private DeliveryTimeline.PackStats single() {
+        List<DeliveryTimeline.PackStats> stats = timeline.getStats();
+        assertEquals(1, stats.size());
+        return stats.get(0);
+    }
+    
+    private DeliveryTimeline.Delivery delivery(UUID player) {
+        return timeline.getDeliveries(player).iterator().next();
+    }
+}
@@ -0,0 +1,62 @@
+package com.seniorresourcepacks;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Accept-Encoding negotiation.
+ */
+class HttpCompressionTest {
+    
+    // Header, expected coding (null for identity)
+    private static final String[][] NEGOTIATIONS = {
+            {null, null},
+            {"", null},
+            {"identity", null},
+            {"gzip", "gzip"},
+            {"deflate", "deflate"},
+            {"x-gzip", "gzip"},
+            {"gzip, deflate, br", "gzip"},
+            {"deflate, gzip", "gzip"},
+            // Quality decides, a tie goes to gzip
+            {"gzip;q=0.5, deflate", "deflate"},
+            {"gzip;q=0.8, deflate;q=0.8", "gzip"},
+            {"deflate;q=0.9, gzip;q=0.1", "deflate"},
+            // q=0 rules a coding out
+            {"gzip;q=0", null},
+            {"gzip;q=0, deflate", "deflate"},
+            {"gzip;q=0.000, deflate;q=0", null},
+            // The wildcard covers codings not named
+            {"*", "gzip"},
+            {"*;q=0", null},
+            {"gzip;q=0, *", "deflate"},
+            {"deflate;q=0.5, *;q=0.9", "gzip"},
+            {"br, *;q=0", null},
+            // Case, whitespace and odd parameters
+            {"GZIP", "gzip"},
+            {"  Deflate ;  q=1.0 ", "deflate"},
+            {"gzip ; Q=0.1, deflate;q=0.4", "deflate"},
+            {"gzip;level=9;q=0.2, deflate;q=0.1", "gzip"},
+            {"gzip;q=bogus, deflate;q=0.1", "deflate"},
+            {",,gzip,,", "gzip"},
+    };
+    
+    @Test
+    void negotiatesByQuality() {
+        for (String[] negotiation : NEGOTIATIONS) {
+            assertEquals(negotiation[1], HttpCompression.negotiate(negotiation[0]), "Accept-Encoding: " + negotiation[0]);
+        }
+    }
+    
+    @Test
+    void onlyTextLikeTypesAreCompressed() {
+        assertTrue(HttpCompression.isCompressible("text/html; charset=utf-8"));
+        assertTrue(HttpCompression.isCompressible("application/json"));
+        assertTrue(HttpCompression.isCompressible("Application/JSON;charset=UTF-8"));
+        assertTrue(HttpCompression.isCompressible("application/problem+json"));
+        assertFalse(HttpCompression.isCompressible("application/zip"));
+        assertFalse(HttpCompression.isCompressible("image/png"));
+        assertFalse(HttpCompression.isCompressible("application/octet-stream"));
+    }
+}
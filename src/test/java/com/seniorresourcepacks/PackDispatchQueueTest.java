@@ -0,0 +1,167 @@
+package com.seniorresourcepacks;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Admission order, caps and slot release of the pack dispatch queue, on a stepped clock.
+ */
+class PackDispatchQueueTest {
+    
+    private final List<UUID> dispatched = new ArrayList<>();
+    private long now = 1_000_000;
+    private PackDispatchQueue queue;
+    
+    @BeforeEach
+    void createQueue() {
+        queue = new PackDispatchQueue(dispatched::add, () -> now);
+        queue.configure(3, 10, 60_000);
+    }
+    
+    @Test
+    void priorityGoesFirstThenLongestWaiting() {
+        UUID early = joins(0);
+        UUID late = joins(0);
+        UUID vip = joins(1);
+        UUID laterVip = joins(1);
+        
+        queue.tick();
+        assertEquals(List.of(vip, laterVip, early), dispatched);
+        finish(vip, laterVip, early);
+        queue.tick();
+        assertEquals(late, dispatched.get(3));
+    }
+    
+    @Test
+    void requeueKeepsThePlaceAndOnlyRaisesPriority() {
+        UUID first = joins(0);
+        UUID second = joins(0);
+        UUID third = joins(1);
+        // Queuing again at the same priority changes nothing
+        queue.enqueue(first, 0);
+        // Promoted, and its earlier place puts it ahead of the player who joined with priority
+        queue.enqueue(second, 1);
+        // A lower priority never demotes
+        queue.enqueue(third, 0);
+        
+        queue.configure(1, 1, 60_000);
+        List<UUID> order = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            queue.tick();
+            UUID last = dispatched.get(dispatched.size() - 1);
+            order.add(last);
+            queue.release(last);
+        }
+        assertEquals(List.of(second, third, first), order);
+        assertEquals(0, queue.getQueueDepth());
+    }
+    
+    @Test
+    void inFlightCapHoldsPlayersBackUntilASlotIsReleased() {
+        List<UUID> players = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            players.add(joins(0));
+        }
+        
+        queue.tick();
+        assertEquals(players.subList(0, 3), dispatched);
+        assertEquals(3, queue.getInFlightCount());
+        assertEquals(2, queue.getQueueDepth());
+        
+        // Still full, nobody else gets in
+        queue.tick();
+        assertEquals(3, dispatched.size());
+        
+        // Settling one pack frees exactly one slot
+        queue.release(players.get(1));
+        assertFalse(queue.isInFlight(players.get(1)));
+        queue.tick();
+        assertEquals(players.subList(0, 4), dispatched);
+        assertEquals(3, queue.getInFlightCount());
+    }
+    
+    @Test
+    void dispatchesPerCycleLimitsEachTick() {
+        queue.configure(100, 2, 60_000);
+        for (int i = 0; i < 5; i++) {
+            joins(0);
+        }
+        
+        queue.tick();
+        assertEquals(2, dispatched.size());
+        queue.tick();
+        assertEquals(4, dispatched.size());
+        queue.tick();
+        assertEquals(5, dispatched.size());
+        assertEquals(5, queue.getDispatchedCount());
+    }
+    
+    @Test
+    void stuckDownloadExpiresAfterTheTimeout() {
+        queue.configure(1, 1, 60_000);
+        UUID stuck = joins(0);
+        UUID waiting = joins(0);
+        queue.tick();
+        assertEquals(List.of(stuck), dispatched);
+        
+        now += 60_000;
+        queue.tick();
+        assertTrue(queue.isInFlight(stuck), "Not past the timeout yet");
+        assertEquals(1, dispatched.size());
+        
+        now += 1;
+        queue.tick();
+        assertFalse(queue.isInFlight(stuck));
+        assertEquals(List.of(stuck, waiting), dispatched);
+    }
+    
+    @Test
+    void leavingPlayerGivesUpPlaceAndSlot() {
+        queue.configure(1, 1, 60_000);
+        UUID downloading = joins(0);
+        UUID leaving = joins(0);
+        UUID staying = joins(0);
+        queue.tick();
+        
+        queue.remove(leaving);
+        queue.remove(downloading);
+        queue.tick();
+        assertEquals(List.of(downloading, staying), dispatched);
+        assertEquals(0, queue.getQueueDepth());
+    }
+    
+    @Test
+    void averageWaitUsesTheClock() {
+        queue.configure(1, 1, 60_000);
+        UUID first = joins(0);
+        joins(0);
+        now += 2_000;
+        queue.tick();
+        queue.release(first);
+        now += 4_000;
+        queue.tick();
+        
+        // 2 s for the first, 6 s for the second
+        assertEquals(4_000, queue.getAverageWaitMillis());
+        assertEquals(0, queue.getPublishedQueueDepth());
+        assertEquals(1, queue.getPublishedInFlight());
+    }
+    
+    private UUID joins(int priority) {
+        UUID playerId = UUID.randomUUID();
+        queue.enqueue(playerId, priority);
+        return playerId;
+    }
+    
+    private void finish(UUID... playerIds) {
+        for (UUID playerId : playerIds) {
+            queue.release(playerId);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.seniorresourcepacks;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pack downloads through a real PackHttpServer on loopback, the way a client sees them.
+ */
+class PackDownloadHandlerTest {
+    
+    private static final String PACK_NAME = "pack.zip";
+    
+    @TempDir
+    Path folder;
+    
+    private PackHttpServer httpServer;
+    private File pack;
+    
+    @AfterEach
+    void stopServer() throws IOException {
+        if (httpServer != null) {
+            httpServer.stop();
+        }
+    }
+    
+    @Test
+    void largePackIsStreamedWithoutBufferingItOnTheHeap() throws Exception {
+        // Sparse, so several hundred MB cost no disk space
+        long size = 400L * 1024 * 1024;
+        pack = folder.resolve(PACK_NAME).toFile();
+        try (RandomAccessFile file = new RandomAccessFile(pack, "rw")) {
+            file.setLength(size);
+        }
+        startServer(new byte[20]);
+        
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        AtomicLong peak = new AtomicLong(baseline);
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.setDaemon(true);
+        sampler.start();
+        
+        Response response;
+        try {
+            response = get("", false);
+        } finally {
+            sampler.interrupt();
+            sampler.join();
+        }
+        
+        assertEquals(200, response.status);
+        assertEquals(size, response.bodyLength);
+        // Buffering the pack would need at least its full size; streaming needs a few buffers
+        long growth = peak.get() - baseline;
+        assertTrue(growth < 32L * 1024 * 1024, "Heap grew by " + growth / 1024 / 1024 + " MB while serving a " + size / 1024 / 1024 + " MB pack");
+    }
+    
+    @Test
+    void rangeRequestGetsPartialContent() throws Exception {
+        byte[] content = createPack(100_000);
+        startServer(PackHasher.sha1(pack));
+        
+        Response response = get("Range: bytes=1000-1999\r\n", true);
+        
+        assertEquals(206, response.status);
+        assertEquals("bytes 1000-1999/100000", response.headers.get("content-range"));
+        assertEquals("1000", response.headers.get("content-length"));
+        assertArrayEquals(Arrays.copyOfRange(content, 1000, 2000), response.body);
+    }
+    
+    @Test
+    void openEndedRangeResumesToTheEnd() throws Exception {
+        byte[] content = createPack(100_000);
+        startServer(PackHasher.sha1(pack));
+        
+        Response response = get("Range: bytes=60000-\r\n", true);
+        
+        assertEquals(206, response.status);
+        assertEquals("bytes 60000-99999/100000", response.headers.get("content-range"));
+        assertArrayEquals(Arrays.copyOfRange(content, 60000, 100_000), response.body);
+    }
+    
+    @Test
+    void suffixRangeGetsTheLastBytes() throws Exception {
+        byte[] content = createPack(100_000);
+        startServer(PackHasher.sha1(pack));
+        
+        Response response = get("Range: bytes=-500\r\n", true);
+        
+        assertEquals(206, response.status);
+        assertEquals("bytes 99500-99999/100000", response.headers.get("content-range"));
+        assertArrayEquals(Arrays.copyOfRange(content, 99_500, 100_000), response.body);
+    }
+    
+    @Test
+    void rangePastTheEndIsNotSatisfiable() throws Exception {
+        createPack(100_000);
+        startServer(PackHasher.sha1(pack));
+        
+        Response response = get("Range: bytes=100000-\r\n", true);
+        
+        assertEquals(416, response.status);
+        assertEquals("bytes */100000", response.headers.get("content-range"));
+    }
+    
+    @Test
+    void multipleRangesFallBackToTheFullPack() throws Exception {
+        byte[] content = createPack(100_000);
+        startServer(PackHasher.sha1(pack));
+        
+        Response response = get("Range: bytes=0-99,500-599\r\n", true);
+        
+        assertEquals(200, response.status);
+        assertNull(response.headers.get("content-range"));
+        assertArrayEquals(content, response.body);
+    }
+    
+    @Test
+    void ifRangeWithTheCurrentEtagResumes() throws Exception {
+        byte[] content = createPack(100_000);
+        byte[] hash = PackHasher.sha1(pack);
+        startServer(hash);
+        
+        Response response = get("Range: bytes=50000-\r\nIf-Range: \"" + PackHasher.toHex(hash) + "\"\r\n", true);
+        
+        assertEquals(206, response.status);
+        assertArrayEquals(Arrays.copyOfRange(content, 50_000, 100_000), response.body);
+    }
+    
+    @Test
+    void ifRangeWithAnOldEtagGetsTheFullPack() throws Exception {
+        byte[] content = createPack(100_000);
+        startServer(PackHasher.sha1(pack));
+        
+        // The client started downloading a previous version of the pack
+        Response response = get("Range: bytes=50000-\r\nIf-Range: \"" + PackHasher.toHex(new byte[20]) + "\"\r\n", true);
+        
+        assertEquals(200, response.status);
+        assertNull(response.headers.get("content-range"));
+        assertArrayEquals(content, response.body);
+    }
+    
+    // Random content, so a body from the wrong offset can never match by accident
+    private byte[] createPack(int size) throws IOException {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        pack = folder.resolve(PACK_NAME).toFile();
+        Files.write(pack.toPath(), content);
+        return content;
+    }
+    
+    private void startServer(byte[] hash) throws IOException {
+        Logger logger = Logger.getLogger("SeniorResourcePacks-Test");
+        logger.setLevel(Level.OFF);
+        PackRegistry registry = new PackRegistry(
+                List.of(new ResourcePackInfo(PACK_NAME, "http://127.0.0.1/" + PACK_NAME, hash, pack)), Map.of(), false, true);
+        PackDownloadHandler handler = new PackDownloadHandler(logger, () -> registry, folder.toFile(), new PackMetrics(), new DeliveryTimeline());
+        httpServer = new PackHttpServer(logger, handler::handle, new PackHttpServer.Settings());
+        httpServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+    
+    static final class Response {
+        int status;
+        final Map<String, String> headers = new HashMap<>();
+        long bodyLength;
+        byte[] body;
+    }
+    
+    // One request on a fresh connection; the body is kept only when asked for, otherwise just counted
+    private Response get(String extraHeaders, boolean keepBody) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), httpServer.getPort())) {
+            socket.setSoTimeout(30_000);
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET /" + PACK_NAME + " HTTP/1.1\r\nHost: 127.0.0.1\r\nConnection: close\r\n" + extraHeaders + "\r\n")
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            
+            InputStream in = new BufferedInputStream(socket.getInputStream(), 64 * 1024);
+            Response response = new Response();
+            response.status = Integer.parseInt(readLine(in).split(" ")[1]);
+            String line;
+            while (!(line = readLine(in)).isEmpty()) {
+                int colon = line.indexOf(':');
+                response.headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+            
+            long contentLength = Long.parseLong(response.headers.getOrDefault("content-length", "0"));
+            ByteArrayOutputStream body = keepBody ? new ByteArrayOutputStream() : null;
+            byte[] buffer = new byte[64 * 1024];
+            long remaining = contentLength;
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    throw new EOFException("Connection closed mid-body");
+                }
+                if (body != null) {
+                    body.write(buffer, 0, read);
+                }
+                remaining -= read;
+            }
+            response.bodyLength = contentLength;
+            response.body = body != null ? body.toByteArray() : null;
+            return response;
+        }
+    }
+    
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c < 0) {
+                throw new EOFException("Connection closed mid-head");
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+}
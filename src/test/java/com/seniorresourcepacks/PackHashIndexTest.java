@@ -0,0 +1,194 @@
+package com.seniorresourcepacks;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Recovery of the on-disk hash index from corrupt, truncated and stale contents.
+ */
+class PackHashIndexTest {
+    
+    private static final long MTIME = 1_700_000_000_000L;
+    
+    @TempDir
+    Path folder;
+    
+    private File indexFile;
+    private File first;
+    private File second;
+    private File third;
+    
+    @BeforeEach
+    void writeIndex() throws IOException {
+        indexFile = folder.resolve("hash-index.bin").toFile();
+        first = pack("first.zip");
+        second = pack("second.zip");
+        third = pack("third.zip");
+        
+        PackHashIndex index = new PackHashIndex(indexFile);
+        assertTrue(index.load());
+        for (File file : new File[]{first, second, third}) {
+            index.put(file, file.length(), file.lastModified(), PackHasher.sha1(file));
+        }
+    }
+    
+    @Test
+    void intactIndexLoadsEveryEntry() throws IOException {
+        PackHashIndex index = new PackHashIndex(indexFile);
+        assertTrue(index.load());
+        assertCached(index, first, second, third);
+    }
+    
+    @Test
+    void flippedBodyByteDropsOnlyTheDamagedRecord() throws IOException {
+        long cleanLength = indexFile.length();
+        try (RandomAccessFile file = new RandomAccessFile(indexFile, "rw")) {
+            // Inside the hash of the last record, just before its CRC
+            file.seek(file.length() - 8);
+            int b = file.read();
+            file.seek(file.length() - 8);
+            file.write(b ^ 0xFF);
+        }
+        
+        PackHashIndex index = new PackHashIndex(indexFile);
+        assertFalse(index.load());
+        assertCached(index, first, second);
+        assertNull(index.lookup(third));
+        
+        // Rehashing the lost pack rewrites the file instead of appending after the damage
+        index.put(third, third.length(), third.lastModified(), PackHasher.sha1(third));
+        assertEquals(cleanLength, indexFile.length());
+        assertReloadsClean(first, second, third);
+    }
+    
+    @Test
+    void truncatedTailRecordIsDroppedAndRebuilt() throws IOException {
+        long cleanLength = indexFile.length();
+        try (RandomAccessFile file = new RandomAccessFile(indexFile, "rw")) {
+            // A crash in the middle of the last append
+            file.setLength(file.length() - 5);
+        }
+        
+        PackHashIndex index = new PackHashIndex(indexFile);
+        assertFalse(index.load());
+        assertCached(index, first, second);
+        assertNull(index.lookup(third));
+        
+        index.put(third, third.length(), third.lastModified(), PackHasher.sha1(third));
+        assertEquals(cleanLength, indexFile.length());
+        assertReloadsClean(first, second, third);
+    }
+    
+    @Test
+    void badHeaderDiscardsTheWholeFile() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(indexFile, "rw")) {
+            file.writeInt(0x12345678);
+        }
+        
+        PackHashIndex index = new PackHashIndex(indexFile);
+        assertFalse(index.load());
+        assertNull(index.lookup(first));
+        
+        index.put(first, first.length(), first.lastModified(), PackHasher.sha1(first));
+        assertReloadsClean(first);
+    }
+    
+    @Test
+    void changedSizeOrTimeForcesARehash() throws IOException {
+        PackHashIndex index = new PackHashIndex(indexFile);
+        assertTrue(index.load());
+        
+        assertTrue(first.setLastModified(MTIME + 60_000));
+        assertNull(index.lookup(first), "Touched pack must be rehashed");
+        
+        Files.write(second.toPath(), "second.zip, now longer".getBytes(StandardCharsets.UTF_8));
+        assertTrue(second.setLastModified(MTIME));
+        assertNull(index.lookup(second), "Resized pack must be rehashed");
+        
+        assertCached(index, third);
+    }
+    
+    @Test
+    void hashRecordedWithThePreHashStateDoesNotMatchAFileChangedMeanwhile() throws IOException {
+        PackHashIndex index = new PackHashIndex(indexFile);
+        assertTrue(index.load());
+        long size = first.length();
+        long lastModified = first.lastModified();
+        byte[] hash = PackHasher.sha1(first);
+        // The upload finishes while the partial file is being hashed
+        Files.write(first.toPath(), "first.zip, fully uploaded".getBytes(StandardCharsets.UTF_8));
+        assertTrue(first.setLastModified(MTIME + 1_000));
+        
+        index.put(first, size, lastModified, hash);
+        assertNull(index.lookup(first));
+    }
+    
+    @Test
+    void supersededRecordsAreCompacted() throws IOException {
+        PackHashIndex index = new PackHashIndex(indexFile);
+        assertTrue(index.load());
+        long cleanLength = indexFile.length();
+        // Every touch appends one more record for the same pack
+        for (int i = 1; i <= 30; i++) {
+            assertTrue(first.setLastModified(MTIME + i * 1_000L));
+            index.put(first, first.length(), first.lastModified(), PackHasher.sha1(first));
+        }
+        assertTrue(indexFile.length() > cleanLength * 5);
+        
+        // Past the threshold the next load marks the file for compaction, done on the next write
+        PackHashIndex reloaded = new PackHashIndex(indexFile);
+        assertTrue(reloaded.load());
+        reloaded.prune();
+        assertEquals(cleanLength, indexFile.length());
+        assertReloadsClean(first, second, third);
+    }
+    
+    @Test
+    void pruneDropsDeletedPacks() throws IOException {
+        PackHashIndex index = new PackHashIndex(indexFile);
+        assertTrue(index.load());
+        long cleanLength = indexFile.length();
+        assertTrue(second.delete());
+        
+        index.prune();
+        assertTrue(indexFile.length() < cleanLength);
+        // A new file at the same path, even with the same size and time, is not trusted
+        pack("second.zip");
+        assertNull(index.lookup(second));
+        assertReloadsClean(first, third);
+        assertNull(loaded().lookup(second));
+    }
+    
+    private File pack(String name) throws IOException {
+        File file = folder.resolve(name).toFile();
+        Files.write(file.toPath(), name.getBytes(StandardCharsets.UTF_8));
+        assertTrue(file.setLastModified(MTIME));
+        return file;
+    }
+    
+    private PackHashIndex loaded() throws IOException {
+        PackHashIndex index = new PackHashIndex(indexFile);
+        assertTrue(index.load(), "Index file should be clean");
+        return index;
+    }
+    
+    private void assertReloadsClean(File... files) throws IOException {
+        assertCached(loaded(), files);
+    }
+    
+    private static void assertCached(PackHashIndex index, File... files) throws IOException {
+        for (File file : files) {
+            assertArrayEquals(PackHasher.sha1(file), index.lookup(file), file.getName());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.seniorresourcepacks;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Connection handling of the embedded server: stalled clients and failing handlers.
+ */
+class PackHttpServerTest {
+    
+    @TempDir
+    Path folder;
+    
+    private final List<LogRecord> logged = new CopyOnWriteArrayList<>();
+    private PackHttpServer httpServer;
+    
+    @AfterEach
+    void stopServer() throws IOException {
+        if (httpServer != null) {
+            httpServer.stop();
+        }
+    }
+    
+    @Test
+    void clientThatStopsReadingIsDisconnectedAndFreesItsSlot() throws Exception {
+        File big = folder.resolve("big.zip").toFile();
+        try (RandomAccessFile file = new RandomAccessFile(big, "rw")) {
+            file.setLength(256L * 1024 * 1024);
+        }
+        PackHttpServer.Settings settings = new PackHttpServer.Settings();
+        settings.maxConnections = 1;
+        settings.writeTimeoutMillis = 500;
+        startServer(settings, (request, response) -> {
+            if (request.path.equals("/big.zip")) {
+                try (FileChannel channel = FileChannel.open(big.toPath(), StandardOpenOption.READ)) {
+                    response.sendFile(200, "application/zip", channel, 0, channel.size());
+                }
+            } else {
+                response.sendText(200, "ok");
+            }
+        });
+        
+        // Asks for far more than the socket buffers hold, then never reads
+        try (Socket stalled = new Socket()) {
+            stalled.setReceiveBufferSize(4096);
+            stalled.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), httpServer.getPort()));
+            stalled.getOutputStream().write("GET /big.zip HTTP/1.1\r\nHost: 127.0.0.1\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            
+            // With the only slot taken this waits in the backlog until the watchdog frees it
+            assertEquals("HTTP/1.1 200 OK", requestStatusLine("/ok", 10_000));
+        }
+        assertTrue(logged.stream().anyMatch(record -> record.getMessage().contains("stopped reading")));
+    }
+    
+    @Test
+    void handlerExceptionIsLoggedAndAnswered() throws Exception {
+        PackHttpServer.Settings settings = new PackHttpServer.Settings();
+        settings.maxConnections = 1;
+        startServer(settings, (request, response) -> {
+            if (request.path.equals("/boom")) {
+                throw new IllegalStateException("handler bug");
+            }
+            response.sendText(200, "ok");
+        });
+        
+        assertEquals("HTTP/1.1 500 Internal Server Error", requestStatusLine("/boom", 5_000));
+        assertTrue(logged.stream().anyMatch(record -> record.getLevel() == Level.SEVERE
+                && record.getThrown() instanceof IllegalStateException));
+        // The one connection slot was given back
+        assertEquals("HTTP/1.1 200 OK", requestStatusLine("/ok", 5_000));
+    }
+    
+    private void startServer(PackHttpServer.Settings settings, PackHttpServer.RequestHandler handler) throws IOException {
+        Logger logger = Logger.getLogger("SeniorResourcePacks-Test-" + System.nanoTime());
+        logger.setUseParentHandlers(false);
+        logger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                logged.add(record);
+            }
+            
+            @Override
+            public void flush() {
+            }
+            
+            @Override
+            public void close() {
+            }
+        });
+        httpServer = new PackHttpServer(logger, handler, settings);
+        httpServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+    
+    private String requestStatusLine(String path, int timeoutMillis) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), httpServer.getPort())) {
+            socket.setSoTimeout(timeoutMillis);
+            socket.getOutputStream().write(("GET " + path + " HTTP/1.1\r\nHost: 127.0.0.1\r\nConnection: close\r\n\r\n")
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+            return reader.readLine();
+        }
+    }
+}
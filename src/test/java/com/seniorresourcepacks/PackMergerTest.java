@@ -0,0 +1,62 @@
+package com.seniorresourcepacks;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Merging slot packs into the single-pack fallback.
+ */
+class PackMergerTest {
+    
+    private static final String LANG = "assets/minecraft/lang/en_us.json";
+    
+    @TempDir
+    Path folder;
+    
+    @Test
+    void brokenJsonInOnePackOnlyLeavesThatFileOut() throws IOException {
+        List<ResourcePackInfo> inputs = List.of(
+                pack("base.zip", "{\"item.base\": \"Base\", \"item.shared\": \"From base\"}"),
+                pack("broken.zip", "{\"item.broken\": "),
+                pack("top.zip", "{\"item.top\": \"Top\", \"item.shared\": \"From top\"}"));
+        
+        Logger logger = Logger.getLogger("SeniorResourcePacks-Test-" + System.nanoTime());
+        logger.setUseParentHandlers(false);
+        File merged = new PackMerger(folder.resolve("merged").toFile(), logger).merge(inputs);
+        
+        JsonObject lang;
+        try (ZipFile zip = new ZipFile(merged); InputStream in = zip.getInputStream(zip.getEntry(LANG))) {
+            lang = JsonParser.parseString(new String(in.readAllBytes(), StandardCharsets.UTF_8)).getAsJsonObject();
+        }
+        assertEquals("Base", lang.get("item.base").getAsString());
+        assertEquals("Top", lang.get("item.top").getAsString());
+        assertEquals("From top", lang.get("item.shared").getAsString());
+        assertFalse(lang.has("item.broken"));
+    }
+    
+    private ResourcePackInfo pack(String name, String lang) throws IOException {
+        File file = folder.resolve(name).toFile();
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            out.putNextEntry(new ZipEntry(LANG));
+            out.write(lang.getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+        return new ResourcePackInfo(name, "http://127.0.0.1:8080/" + name, PackHasher.sha1(file), file);
+    }
+}
@@ -0,0 +1,76 @@
+package com.seniorresourcepacks;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Prometheus text exposition of the pack server metrics.
+ */
+class PackMetricsTest {
+    
+    @Test
+    void rendersGaugesCountersAndHistograms() {
+        PackMetrics metrics = new PackMetrics();
+        metrics.recordRequest(200, 3_000_000, 1_000_000);
+        metrics.recordRequest(200, 40_000_000, 2_000_000);
+        // Slower than the largest bucket
+        metrics.recordRequest(206, 400_000_000_000L, -1);
+        metrics.recordRejected(400);
+        metrics.recordPackBytes("base.zip", 1024);
+        metrics.recordPackBytes("base.zip", 1024);
+        metrics.recordPackBytes("we\"ird\\name.zip", 7);
+        metrics.recordPackBytes("empty.zip", 0);
+        metrics.recordPackStatus("SUCCESSFULLY_LOADED");
+        
+        Map<String, Number> gauges = new LinkedHashMap<>();
+        gauges.put("packs_loaded", 3);
+        gauges.put("dispatch_queue_depth", 0);
+        String text = metrics.render(gauges);
+        
+        assertTrue(text.startsWith("# TYPE seniorresourcepacks_packs_loaded gauge\nseniorresourcepacks_packs_loaded 3\n"
+                + "# TYPE seniorresourcepacks_dispatch_queue_depth gauge\nseniorresourcepacks_dispatch_queue_depth 0\n"), text);
+        assertContains(text, "# HELP seniorresourcepacks_http_responses_total HTTP responses sent, by status code\n"
+                + "# TYPE seniorresourcepacks_http_responses_total counter\n"
+                + "seniorresourcepacks_http_responses_total{code=\"200\"} 2\n"
+                + "seniorresourcepacks_http_responses_total{code=\"206\"} 1\n"
+                + "seniorresourcepacks_http_responses_total{code=\"400\"} 1\n");
+        // Label values are escaped, packs without bytes sent do not show up
+        assertContains(text, "seniorresourcepacks_pack_bytes_sent_total{pack=\"base.zip\"} 2048\n"
+                + "seniorresourcepacks_pack_bytes_sent_total{pack=\"we\\\"ird\\\\name.zip\"} 7\n");
+        assertFalse(text.contains("empty.zip"));
+        assertContains(text, "seniorresourcepacks_pack_status_events_total{status=\"SUCCESSFULLY_LOADED\"} 1\n");
+        
+        // Buckets are cumulative and end in +Inf, which equals the count
+        String duration = "seniorresourcepacks_http_request_duration_seconds";
+        assertContains(text, "# TYPE " + duration + " histogram\n"
+                + duration + "_bucket{le=\"0.005\"} 1\n"
+                + duration + "_bucket{le=\"0.01\"} 1\n"
+                + duration + "_bucket{le=\"0.025\"} 1\n"
+                + duration + "_bucket{le=\"0.05\"} 2\n");
+        assertContains(text, duration + "_bucket{le=\"300.0\"} 2\n"
+                + duration + "_bucket{le=\"+Inf\"} 3\n"
+                + duration + "_sum 400.043\n"
+                + duration + "_count 3\n");
+        // Requests that never sent a head are left out of time to first byte
+        String firstByte = "seniorresourcepacks_http_time_to_first_byte_seconds";
+        assertContains(text, firstByte + "_bucket{le=\"0.005\"} 2\n");
+        assertContains(text, firstByte + "_bucket{le=\"+Inf\"} 2\n" + firstByte + "_sum 0.003\n" + firstByte + "_count 2\n");
+    }
+    
+    @Test
+    void bucketBoundsAreInclusive() {
+        PackMetrics metrics = new PackMetrics();
+        metrics.recordRequest(200, 5_000_000, 5_000_000);
+        String text = metrics.render(Map.of());
+        
+        assertContains(text, "seniorresourcepacks_http_request_duration_seconds_bucket{le=\"0.005\"} 1\n");
+    }
+    
+    private static void assertContains(String text, String expected) {
+        assertTrue(text.contains(expected), "Missing:\n" + expected + "\nin:\n" + text);
+    }
+}
@@ -0,0 +1,84 @@
+package com.seniorresourcepacks;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lossless checks and cache layout of the pack optimizer.
+ */
+class PackOptimizerTest {
+    
+    @TempDir
+    Path folder;
+    
+    @Test
+    void sixteenBitSamplesThatOnlyDifferInTheLowByteAreNotTheSamePixels() {
+        BufferedImage a = gradient16();
+        BufferedImage b = gradient16();
+        assertTrue(PackOptimizer.samePixels(a, b));
+        
+        // Same top byte, so getRGB sees no difference
+        WritableRaster raster = b.getRaster();
+        raster.setSample(3, 3, 0, raster.getSample(3, 3, 0) ^ 1);
+        assertEquals(a.getRGB(3, 3), b.getRGB(3, 3));
+        assertFalse(PackOptimizer.samePixels(a, b));
+    }
+    
+    @Test
+    void recompressedSixteenBitPngKeepsEverySample() throws IOException {
+        BufferedImage image = gradient16();
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(PackOptimizer.recompressPng(png.toByteArray())));
+        assertTrue(PackOptimizer.samePixels(image, decoded));
+    }
+    
+    @Test
+    void packNameWithoutZipSuffixIsCachedUnderItsFullName() throws IOException {
+        File source = folder.resolve("pack").toFile();
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(source))) {
+            out.putNextEntry(new ZipEntry("pack.mcmeta"));
+            out.write("{ \"pack\": { \"pack_format\": 34 } }".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+        Logger logger = Logger.getLogger("SeniorResourcePacks-Test-" + System.nanoTime());
+        logger.setUseParentHandlers(false);
+        PackOptimizer optimizer = new PackOptimizer(folder.resolve("optimized").toFile(), logger, true, true, List.of());
+        
+        File optimized = optimizer.optimize("pack", source, PackHasher.sha1(source));
+        assertEquals(folder.resolve("optimized").resolve("pack").toFile(), optimized.getParentFile());
+        try (ZipFile zip = new ZipFile(optimized)) {
+            assertNotNull(zip.getEntry("pack.mcmeta"));
+        }
+    }
+    
+    private static BufferedImage gradient16() {
+        BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_USHORT_GRAY);
+        WritableRaster raster = image.getRaster();
+        for (int y = 0; y < 16; y++) {
+            for (int x = 0; x < 16; x++) {
+                raster.setSample(x, y, 0, (y * 16 + x) * 257);
+            }
+        }
+        return image;
+    }
+}
@@ -0,0 +1,144 @@
+package com.seniorresourcepacks;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Publishing registries the way reloads do: built off to the side, then swapped in whole.
+ */
+class PackRegistryTest {
+    
+    private static final List<String> PACK_NAMES = List.of("base.zip", "survival.zip", "lobby.zip");
+    
+    @TempDir
+    Path folder;
+    
+    @Test
+    void readersNeverSeeAHalfPublishedRegistryDuringReloads() throws Exception {
+        // Every reload writes the packs with new content into their own folder, so the URL,
+        // hash and file of a pack all name the generation they were loaded in
+        Map<Integer, Map<String, byte[]>> hashesByGeneration = new ConcurrentHashMap<>();
+        AtomicReference<PackRegistry> registry = new AtomicReference<>(buildGeneration(0, hashesByGeneration));
+        
+        int readers = 8;
+        AtomicBoolean reloading = new AtomicBoolean(true);
+        AtomicLong reads = new AtomicLong();
+        CountDownLatch started = new CountDownLatch(readers);
+        ExecutorService executor = Executors.newFixedThreadPool(readers);
+        List<Future<?>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < readers; i++) {
+                results.add(executor.submit(() -> {
+                    started.countDown();
+                    while (reloading.get()) {
+                        // Grabbed once per lookup round, as the download handler and join events do
+                        PackRegistry current = registry.get();
+                        int generation = -1;
+                        for (String name : PACK_NAMES) {
+                            ResourcePackInfo pack = current.getPack(name);
+                            assertNotNull(pack, name + " missing from a published registry");
+                            int packGeneration = generationOf(pack);
+                            if (generation < 0) {
+                                generation = packGeneration;
+                            }
+                            assertEquals(generation, packGeneration, "Packs from two reloads in one registry");
+                            assertEquals(folder.resolve("gen-" + generation).resolve(name).toFile(), pack.file);
+                            assertArrayEquals(hashesByGeneration.get(generation).get(name), pack.hash, "Hash of " + pack.url);
+                            assertSame(pack, current.getPack(pack.id));
+                        }
+                        for (ResourcePackInfo pack : current.getPacksFor("lobby")) {
+                            assertSame(current.getPack(pack.filename), pack);
+                        }
+                        assertEquals(List.of("base.zip", "survival.zip"), names(current.getDefaultPacks()));
+                        reads.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            for (int generation = 1; generation <= 200; generation++) {
+                registry.set(buildGeneration(generation, hashesByGeneration));
+            }
+        } finally {
+            reloading.set(false);
+            executor.shutdown();
+        }
+        
+        for (Future<?> result : results) {
+            // Rethrows the first failed assertion of any reader
+            result.get(10, TimeUnit.SECONDS);
+        }
+        assertTrue(reads.get() > 0);
+    }
+    
+    @Test
+    void mergedPackOnlyReplacesTheDefaultsForSinglePackClients() throws IOException {
+        PackRegistry registry = buildGeneration(0, new ConcurrentHashMap<>());
+        ResourcePackInfo merged = pack("merged.zip");
+        registry = new PackRegistry(registry.getDefaultPacks(), registry.getWorldPacks(), merged, false, true);
+        
+        assertEquals(List.of("base.zip", "survival.zip"), names(registry.getPacksFor("world", false)));
+        assertEquals(List.of(merged), registry.getPacksFor("world", true));
+        // Profiles are not merged, every client gets them as configured
+        assertEquals(List.of("base.zip", "lobby.zip"), names(registry.getPacksFor("lobby", true)));
+        // Served like any other pack
+        assertSame(merged, registry.getPack("merged.zip"));
+        assertSame(merged, registry.getPack(merged.id));
+    }
+    
+    private ResourcePackInfo pack(String name) throws IOException {
+        File file = folder.resolve(name).toFile();
+        Files.write(file.toPath(), name.getBytes(StandardCharsets.UTF_8));
+        return new ResourcePackInfo(name, "http://127.0.0.1:8080/" + name, PackHasher.sha1(file), file);
+    }
+    
+    private PackRegistry buildGeneration(int generation, Map<Integer, Map<String, byte[]>> hashesByGeneration) throws IOException {
+        File generationFolder = Files.createDirectories(folder.resolve("gen-" + generation)).toFile();
+        Map<String, ResourcePackInfo> loaded = new LinkedHashMap<>();
+        Map<String, byte[]> hashes = new LinkedHashMap<>();
+        for (String name : PACK_NAMES) {
+            File file = new File(generationFolder, name);
+            Files.write(file.toPath(), (name + " generation " + generation).getBytes(StandardCharsets.UTF_8));
+            byte[] hash = PackHasher.sha1(file);
+            hashes.put(name, hash);
+            loaded.put(name, new ResourcePackInfo(name, "http://127.0.0.1:8080/" + generation + "/" + name, hash, file));
+        }
+        hashesByGeneration.put(generation, hashes);
+        
+        Map<String, List<ResourcePackInfo>> worldPacks = new LinkedHashMap<>();
+        worldPacks.put("lobby", List.of(loaded.get("base.zip"), loaded.get("lobby.zip")));
+        return new PackRegistry(List.of(loaded.get("base.zip"), loaded.get("survival.zip")), worldPacks, false, true);
+    }
+    
+    private static int generationOf(ResourcePackInfo pack) {
+        String[] segments = pack.url.split("/");
+        return Integer.parseInt(segments[segments.length - 2]);
+    }
+    
+    private static List<String> names(List<ResourcePackInfo> packs) {
+        return packs.stream().map(pack -> pack.filename).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,103 @@
+package com.seniorresourcepacks;
+
+import org.bukkit.event.player.PlayerResourcePackStatusEvent.Status;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Which of a player's packs can stay on the client's stack when the target set changes.
+ */
+class PlayerPackTrackerTest {
+    
+    private final UUID player = UUID.randomUUID();
+    private final PlayerPackTracker tracker = new PlayerPackTracker();
+    
+    @Test
+    void matchingStackIsKeptWhole() {
+        List<ResourcePackInfo> target = List.of(pack("base.zip", 1), pack("items.zip", 1), pack("ui.zip", 1));
+        target.forEach(pack -> tracker.markSent(player, pack));
+        
+        assertEquals(3, tracker.currentPrefix(player, target));
+    }
+    
+    @Test
+    void changedPackInTheMiddleInvalidatesEverythingAboveIt() {
+        tracker.markSent(player, pack("base.zip", 1));
+        tracker.markSent(player, pack("items.zip", 1));
+        tracker.markSent(player, pack("ui.zip", 1));
+        
+        assertEquals(1, tracker.currentPrefix(player, List.of(pack("base.zip", 1), pack("items.zip", 2), pack("ui.zip", 1))));
+    }
+    
+    @Test
+    void samePacksInAnotherOrderOnlyKeepTheCommonBottom() {
+        tracker.markSent(player, pack("base.zip", 1));
+        tracker.markSent(player, pack("items.zip", 1));
+        tracker.markSent(player, pack("ui.zip", 1));
+        
+        assertEquals(1, tracker.currentPrefix(player, List.of(pack("base.zip", 1), pack("ui.zip", 1), pack("items.zip", 1))));
+    }
+    
+    @Test
+    void declinedPackIsNotKept() {
+        tracker.markSent(player, pack("base.zip", 1));
+        tracker.markSent(player, pack("items.zip", 1));
+        tracker.recordStatus(player, pack("base.zip", 1).id, Status.DECLINED);
+        
+        assertEquals(0, tracker.currentPrefix(player, List.of(pack("base.zip", 1), pack("items.zip", 1))));
+    }
+    
+    @Test
+    void resentPackMovesToTheTopOfTheStack() {
+        tracker.markSent(player, pack("base.zip", 1));
+        tracker.markSent(player, pack("items.zip", 1));
+        tracker.markSent(player, pack("base.zip", 2));
+        
+        assertEquals(List.of(pack("items.zip", 1).id, pack("base.zip", 2).id), List.copyOf(tracker.getSentPackIds(player)));
+        assertEquals(2, tracker.currentPrefix(player, List.of(pack("items.zip", 1), pack("base.zip", 2))));
+    }
+    
+    @Test
+    void discardOfTheReplacedCopyDoesNotSettleTheNewDelivery() {
+        ResourcePackInfo oldPack = pack("base.zip", 1);
+        ResourcePackInfo newPack = pack("base.zip", 2);
+        tracker.markSent(player, oldPack);
+        assertTrue(tracker.recordStatus(player, oldPack.id, Status.SUCCESSFULLY_LOADED));
+        
+        // The pack changed: the old copy comes off and the new one goes out under the same id
+        tracker.markRemoved(player, oldPack.id);
+        tracker.markSent(player, newPack);
+        assertFalse(tracker.recordStatus(player, newPack.id, Status.ACCEPTED));
+        
+        // The client's answer for the copy it dropped arrives after the new delivery started
+        assertFalse(tracker.recordStatus(player, newPack.id, Status.DISCARDED));
+        assertFalse(tracker.isSettled(player), "Still downloading, the slot must stay taken");
+        assertTrue(tracker.isCurrent(player, newPack), "Would be sent again on the next world switch");
+        
+        // The real outcome still settles it, once
+        assertTrue(tracker.recordStatus(player, newPack.id, Status.SUCCESSFULLY_LOADED));
+        assertTrue(tracker.isSettled(player));
+        assertTrue(tracker.isFullyLoaded(player));
+        assertFalse(tracker.recordStatus(player, newPack.id, Status.SUCCESSFULLY_LOADED));
+    }
+    
+    @Test
+    void statusOfARemovedPackIsIgnored() {
+        ResourcePackInfo pack = pack("base.zip", 1);
+        tracker.markSent(player, pack);
+        tracker.markRemoved(player, pack.id);
+        
+        assertFalse(tracker.recordStatus(player, pack.id, Status.FAILED_DOWNLOAD));
+        assertTrue(tracker.getSentPackIds(player).isEmpty());
+    }
+    
+    private static ResourcePackInfo pack(String filename, int version) {
+        byte[] hash = new byte[20];
+        hash[0] = (byte) version;
+        return new ResourcePackInfo(filename, "http://127.0.0.1:8080/" + filename, hash, null, 0);
+    }
+}
@@ -0,0 +1,145 @@
+package com.seniorresourcepacks;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Public IP lookup against loopback stand-ins for the "what is my IP" services.
+ */
+class PublicIpResolverTest {
+    
+    @TempDir
+    Path folder;
+    
+    private final CountDownLatch shutdown = new CountDownLatch(1);
+    private ExecutorService handlers;
+    private HttpServer server;
+    private File cacheFile;
+    
+    @BeforeEach
+    void startServices() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        answer("/first", 200, "203.0.113.7\n", 0);
+        answer("/second", 200, "198.51.100.9\n", 300);
+        answer("/garbage", 200, "<html>rate limited</html>\n", 0);
+        answer("/out-of-range", 200, "203.0.113.256\n", 0);
+        answer("/error", 503, "198.51.100.1\n", 0);
+        // Answers correctly, but long after any deadline used here
+        answer("/slow", 200, "192.0.2.1\n", 60_000);
+        handlers = Executors.newCachedThreadPool();
+        server.setExecutor(handlers);
+        server.start();
+        cacheFile = folder.resolve("data").resolve("public-ip.txt").toFile();
+    }
+    
+    @AfterEach
+    void stopServices() {
+        shutdown.countDown();
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+    
+    @Test
+    void firstValidAnswerWins() throws Exception {
+        PublicIpResolver resolver = resolver(5_000, "/second", "/first");
+        
+        assertEquals("203.0.113.7", resolver.resolve().get(5, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    void garbageErrorsAndSlowServicesAreIgnored() throws Exception {
+        PublicIpResolver resolver = resolver(5_000, "/slow", "/garbage", "/out-of-range", "/error", "/second");
+        
+        long start = System.nanoTime();
+        assertEquals("198.51.100.9", resolver.resolve().get(5, TimeUnit.SECONDS));
+        // Did not wait for the slow service
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3));
+    }
+    
+    @Test
+    void slowServiceIsCutOffAtTheDeadline() throws Exception {
+        PublicIpResolver resolver = resolver(500, "/slow", "/garbage");
+        
+        long start = System.nanoTime();
+        assertNull(resolver.resolve().get(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3));
+    }
+    
+    @Test
+    void everyServiceFailingKeepsTheCachedAddress() throws Exception {
+        assertEquals("203.0.113.7", resolver(5_000, "/first").resolve().get(5, TimeUnit.SECONDS));
+        
+        // A later start where none of the services give a usable answer
+        PublicIpResolver offline = resolver(500, "/garbage", "/error", "/slow", "/missing");
+        assertNull(offline.resolve().get(5, TimeUnit.SECONDS));
+        assertEquals("203.0.113.7", offline.readCached());
+    }
+    
+    @Test
+    void cacheIsWrittenAndReadBack() throws Exception {
+        PublicIpResolver resolver = resolver(5_000, "/first");
+        assertNull(resolver.readCached());
+        
+        // The folder does not exist yet, the first lookup creates it
+        assertEquals("203.0.113.7", resolver.resolve().get(5, TimeUnit.SECONDS));
+        assertEquals("203.0.113.7\n", Files.readString(cacheFile.toPath()));
+        assertEquals("203.0.113.7", resolver(5_000).readCached());
+        
+        // A newer answer replaces it
+        assertEquals("198.51.100.9", resolver(5_000, "/second").resolve().get(5, TimeUnit.SECONDS));
+        assertEquals("198.51.100.9", resolver.readCached());
+        
+        Files.writeString(cacheFile.toPath(), "not an address\n");
+        assertNull(resolver.readCached());
+    }
+    
+    private PublicIpResolver resolver(long deadlineMillis, String... paths) {
+        List<String> services = new ArrayList<>();
+        for (String path : paths) {
+            services.add("http://127.0.0.1:" + server.getAddress().getPort() + path);
+        }
+        Logger logger = Logger.getLogger("SeniorResourcePacks-Test-" + System.nanoTime());
+        logger.setUseParentHandlers(false);
+        return new PublicIpResolver(services, deadlineMillis, cacheFile, logger);
+    }
+    
+    private void answer(String path, int status, String body, long delayMillis) {
+        server.createContext(path, exchange -> {
+            try {
+                if (delayMillis > 0 && shutdown.await(delayMillis, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(status, bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+    }
+}